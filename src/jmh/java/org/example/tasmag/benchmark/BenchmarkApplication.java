@@ -0,0 +1,95 @@
+package org.example.tasmag.benchmark;
+
+import org.example.tasmag.TasmagApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the application without the web server for benchmarks of the service and repository layers.
+ * Each context gets its own in-memory H2 database created by Hibernate, so benchmarks with different
+ * parameters never see each other's rows.
+ * <p>
+ * With the {@value #DATASOURCE_URL} system property, and {@value #DATASOURCE_USERNAME} and
+ * {@value #DATASOURCE_PASSWORD}, the contexts use that PostgreSQL database instead, migrated by Flyway,
+ * so that the queries run with the indexes and the PostgreSQL-specific SQL of production.
+ * All contexts then share the database, benchmarks clear the tables they fill.
+ */
+final class BenchmarkApplication {
+
+    static final String DATASOURCE_URL = "benchmark.datasource.url";
+    static final String DATASOURCE_USERNAME = "benchmark.datasource.username";
+    static final String DATASOURCE_PASSWORD = "benchmark.datasource.password";
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * @return Whether the benchmarks run against the PostgreSQL database given by {@value #DATASOURCE_URL}.
+     */
+    static boolean isPostgreSql() {
+        return System.getProperty(DATASOURCE_URL) != null;
+    }
+
+    /**
+     * Starts a new application context.
+     * The task cache is disabled so that every lookup reaches the database,
+     * and the statistics refresh is pushed out so it doesn't run during measurements.
+     *
+     * @param databaseName Name of the in-memory database used by the context, unused with PostgreSQL.
+     * @return The started context, to be closed by the caller.
+     */
+    static ConfigurableApplicationContext start(String databaseName) {
+        List<String> args = new ArrayList<>();
+        if (isPostgreSql()) {
+            args.add("--spring.datasource.url=" + System.getProperty(DATASOURCE_URL));
+            args.add("--spring.datasource.driver-class-name=org.postgresql.Driver");
+            args.add("--spring.datasource.username=" + System.getProperty(DATASOURCE_USERNAME, "tasmag"));
+            args.add("--spring.datasource.password=" + System.getProperty(DATASOURCE_PASSWORD, ""));
+            args.add("--spring.flyway.enabled=true");
+            args.add("--spring.jpa.hibernate.ddl-auto=validate");
+        } else {
+            args.add("--spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1");
+            args.add("--spring.datasource.driver-class-name=org.h2.Driver");
+            args.add("--spring.datasource.username=sa");
+            args.add("--spring.datasource.password=");
+            args.add("--spring.flyway.enabled=false");
+            args.add("--spring.jpa.hibernate.ddl-auto=create-drop");
+        }
+        args.add("--spring.jpa.show-sql=false");
+        args.add("--spring.cache.type=none");
+        args.add("--tasmag.tasks.stats.refresh-interval-ms=3600000");
+        args.add("--logging.level.root=WARN");
+        return new SpringApplicationBuilder(TasmagApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+    }
+
+    /**
+     * Deletes the tasks left in the shared PostgreSQL database by a previous benchmark.
+     * An in-memory database is new with every context, so there is nothing to delete.
+     *
+     * @param context The started context.
+     */
+    static void clearTasks(ConfigurableApplicationContext context) {
+        if (isPostgreSql()) {
+            context.getBean(JdbcTemplate.class).execute("TRUNCATE TABLE task");
+        }
+    }
+
+    /**
+     * Updates the PostgreSQL statistics of the task table after it was filled,
+     * so that the planner chooses the plans it would choose for a table of that size in production.
+     *
+     * @param context The started context.
+     */
+    static void analyzeTasks(ConfigurableApplicationContext context) {
+        if (isPostgreSql()) {
+            context.getBean(JdbcTemplate.class).execute("ANALYZE task");
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.example.tasmag.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.example.tasmag.FieldSelection;
+import org.example.tasmag.task.Task;
+import org.example.tasmag.task.TaskStatus;
+import org.example.tasmag.user.User;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Benchmarks of the JSON mapping of tasks and users, as done by the controllers for every request.
+ * The object mapper is configured like the one of the application, with Java time values written as ISO strings.
+ * A page of tasks is also written with a selection of fields, as requested by {@code ?fields=id,name,status},
+ * and compressed with gzip, as done by the server for large responses.
+ * The payload sizes of these variants are reported as secondary results of {@link #gzipTaskPage}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+    private static final String SELECTED_FIELDS = "id,name,status";
+
+    private ObjectWriter taskWriter;
+    private ObjectReader taskReader;
+    private ObjectWriter taskListWriter;
+    private ObjectWriter selectedFieldsTaskListWriter;
+    private ObjectWriter userWriter;
+    private ObjectReader userReader;
+
+    private Task task;
+    private List<Task> tasks;
+    private User user;
+    private byte[] taskJson;
+    private byte[] userJson;
+    private byte[] taskPageJson;
+    private byte[] selectedFieldsTaskPageJson;
+
+    /**
+     * Sizes of a page of tasks, written in full and with the selected fields, each plain and gzipped.
+     * Computed once per trial and reported by JMH next to the time of the benchmarks taking this state.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PageSizes {
+
+        public long pageBytes;
+        public long pageGzippedBytes;
+        public long selectedFieldsPageBytes;
+        public long selectedFieldsPageGzippedBytes;
+
+        @Setup(Level.Trial)
+        public void setUp(JsonBenchmark benchmark) throws IOException {
+            pageBytes = benchmark.taskPageJson.length;
+            pageGzippedBytes = gzip(benchmark.taskPageJson).length;
+            selectedFieldsPageBytes = benchmark.selectedFieldsTaskPageJson.length;
+            selectedFieldsPageGzippedBytes = gzip(benchmark.selectedFieldsTaskPageJson).length;
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().filters(FieldSelection.ALL_FIELDS).build();
+        taskWriter = objectMapper.writerFor(Task.class);
+        taskReader = objectMapper.readerFor(Task.class);
+        taskListWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Task.class));
+        userWriter = objectMapper.writerFor(User.class);
+        userReader = objectMapper.readerFor(User.class);
+        selectedFieldsTaskListWriter = taskListWriter.with(FieldSelection.filters(SELECTED_FIELDS));
+
+        task = task(1L);
+        tasks = new ArrayList<>(PAGE_SIZE);
+        for (long id = 1; id <= PAGE_SIZE; id++) {
+            tasks.add(task(id));
+        }
+        user = new User("user1", "user1@example.org", "password1");
+        user.setId(1L);
+
+        taskJson = taskWriter.writeValueAsBytes(task);
+        userJson = userWriter.writeValueAsBytes(user);
+        taskPageJson = taskListWriter.writeValueAsBytes(tasks);
+        selectedFieldsTaskPageJson = selectedFieldsTaskListWriter.writeValueAsBytes(tasks);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static Task task(long id) {
+        Task task = new Task("Task " + id, "Description of task " + id,
+                LocalDateTime.of(2030, 1, 1, 12, 0).plusHours(id), TaskStatus.IN_PROGRESS);
+        task.setId(id);
+        task.setVersion(3L);
+        return task;
+    }
+
+    @Benchmark
+    public byte[] serializeTask() throws Exception {
+        return taskWriter.writeValueAsBytes(task);
+    }
+
+    @Benchmark
+    public Task deserializeTask() throws Exception {
+        return taskReader.readValue(taskJson);
+    }
+
+    @Benchmark
+    public byte[] serializeTaskPage() throws Exception {
+        return taskListWriter.writeValueAsBytes(tasks);
+    }
+
+    @Benchmark
+    public byte[] serializeTaskPageSelectedFields() throws Exception {
+        return selectedFieldsTaskListWriter.writeValueAsBytes(tasks);
+    }
+
+    /**
+     * Compresses a written page of tasks, the CPU cost the server pays for the smaller payload.
+     * Reports the {@link PageSizes} along with it.
+     */
+    @Benchmark
+    public byte[] gzipTaskPage(PageSizes sizes) throws Exception {
+        return gzip(taskPageJson);
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws Exception {
+        return userWriter.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public User deserializeUser() throws Exception {
+        return userReader.readValue(userJson);
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.tasmag.benchmark;
+
+import org.example.tasmag.KeysetCursor;
+import org.example.tasmag.task.Task;
+import org.example.tasmag.task.TaskFilter;
+import org.example.tasmag.task.TaskRepository;
+import org.example.tasmag.task.TaskService;
+import org.example.tasmag.task.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the task listing and search queries at different table sizes.
+ * A query whose time grows with the table size, rather than with the page size, points to a missing index
+ * or to a plan that scans the table.
+ * <p>
+ * On H2 the search falls back to a LIKE scan, only a run against PostgreSQL, started with the
+ * {@code benchmark.datasource.url} system property, measures the full-text search over the GIN index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskQueryBenchmark {
+
+    private static final int PAGE_SIZE = KeysetCursor.DEFAULT_LIMIT;
+    private static final int INSERT_CHUNK = 1_000;
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    @Param({"1000", "10000", "100000"})
+    public int tableSize;
+
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+    private TaskFilter openTasksDueSoon;
+    private long middleId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("task-query-" + tableSize);
+        BenchmarkApplication.clearTasks(context);
+        taskService = context.getBean(TaskService.class);
+        TaskRepository taskRepository = context.getBean(TaskRepository.class);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Task> chunk = new ArrayList<>(INSERT_CHUNK);
+        for (int i = 0; i < tableSize; i++) {
+            // every hundredth task mentions the search term, the others only share common words
+            String name = i % 100 == 0 ? "Prepare quarterly report " + i : "Task " + i;
+            chunk.add(new Task(name, "Description of task " + i, now.plusHours(i % 1000),
+                    STATUSES[i % STATUSES.length]));
+            if (chunk.size() == INSERT_CHUNK) {
+                taskRepository.saveAll(chunk);
+                chunk.clear();
+            }
+        }
+        taskRepository.saveAll(chunk);
+        BenchmarkApplication.analyzeTasks(context);
+
+        middleId = taskService.findTasks(TaskFilter.NONE, 0, tableSize / 2).getLast().getId();
+        openTasksDueSoon = new TaskFilter(List.of(TaskStatus.PENDING, TaskStatus.IN_PROGRESS),
+                now.plusDays(7), null, null, null, null, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Task> listFirstPage() {
+        return taskService.findTasks(TaskFilter.NONE, 0, PAGE_SIZE);
+    }
+
+    /**
+     * Reads a page from the middle of the table. With keyset pagination it should cost the same as the first page.
+     */
+    @Benchmark
+    public List<Task> listMiddlePage() {
+        return taskService.findTasks(TaskFilter.NONE, middleId, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Task> listFilteredPage() {
+        return taskService.findTasks(openTasksDueSoon, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Task> searchFirstPage() {
+        return taskService.searchTasks("quarterly report", 0, 20);
+    }
+}
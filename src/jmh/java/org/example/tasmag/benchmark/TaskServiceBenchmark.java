@@ -0,0 +1,95 @@
+package org.example.tasmag.benchmark;
+
+import org.example.tasmag.task.Task;
+import org.example.tasmag.task.TaskService;
+import org.example.tasmag.task.TaskStatus;
+import org.example.tasmag.task.TaskUpdateResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the single task operations of {@link TaskService} against an embedded H2 database.
+ * The numbers include the service, Spring Data and Hibernate overhead, which is the part the application controls.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskServiceBenchmark {
+
+    private static final int TASKS = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+    private List<Long> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("task-service");
+        BenchmarkApplication.clearTasks(context);
+        taskService = context.getBean(TaskService.class);
+        ids = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            ids.add(taskService.saveTask(newTask(i)).getId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private static Task newTask(int i) {
+        return new Task("Task " + i, "Description of task " + i, LocalDateTime.now().plusDays(i % 30), TaskStatus.PENDING);
+    }
+
+    private Long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    @Benchmark
+    public Optional<Task> findTaskById() {
+        return taskService.findTaskById(randomId());
+    }
+
+    @Benchmark
+    public Task createTask() {
+        return taskService.saveTask(newTask(ThreadLocalRandom.current().nextInt(TASKS)));
+    }
+
+    @Benchmark
+    public TaskUpdateResult updateTask() {
+        Task task = newTask(ThreadLocalRandom.current().nextInt(TASKS));
+        task.setStatus(TaskStatus.IN_PROGRESS);
+        return taskService.updateTask(randomId(), task, null);
+    }
+
+    /**
+     * Creates and deletes a task, so the table keeps its size over the iterations.
+     */
+    @Benchmark
+    public boolean createAndDeleteTask() {
+        Task task = taskService.saveTask(newTask(0));
+        return taskService.deleteTask(task.getId());
+    }
+}
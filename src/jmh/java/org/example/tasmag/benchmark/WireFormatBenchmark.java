@@ -0,0 +1,127 @@
+package org.example.tasmag.benchmark;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.example.tasmag.FieldSelection;
+import org.example.tasmag.task.Task;
+import org.example.tasmag.task.TaskStatus;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks comparing the encoding and decoding of tasks in the wire formats offered by the controllers,
+ * JSON and CBOR. Both mappers are configured alike, so the numbers differ only by the format.
+ * The payload sizes of a single task and of a page of tasks are reported
+ * as secondary results of {@link #encodeTaskPage}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"json", "cbor"})
+    public String format;
+
+    private ObjectWriter taskWriter;
+    private ObjectReader taskReader;
+    private ObjectWriter taskListWriter;
+    private ObjectReader taskListReader;
+
+    private Task task;
+    private List<Task> tasks;
+    private byte[] taskBytes;
+    private byte[] taskPageBytes;
+
+    /**
+     * Sizes of a task and of a page of tasks in the format of the benchmark.
+     * Reported by JMH next to the time of the benchmarks taking this state.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSizes {
+
+        public long taskBytes;
+        public long taskPageBytes;
+
+        @Setup(Level.Trial)
+        public void setUp(WireFormatBenchmark benchmark) {
+            taskBytes = benchmark.taskBytes.length;
+            taskPageBytes = benchmark.taskPageBytes.length;
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        Jackson2ObjectMapperBuilder builder = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+        ObjectMapper objectMapper = builder.filters(FieldSelection.ALL_FIELDS).build();
+        JavaType taskListType = objectMapper.getTypeFactory().constructCollectionType(List.class, Task.class);
+        taskWriter = objectMapper.writerFor(Task.class);
+        taskReader = objectMapper.readerFor(Task.class);
+        taskListWriter = objectMapper.writerFor(taskListType);
+        taskListReader = objectMapper.readerFor(taskListType);
+
+        task = task(1L);
+        tasks = new ArrayList<>(PAGE_SIZE);
+        for (long id = 1; id <= PAGE_SIZE; id++) {
+            tasks.add(task(id));
+        }
+        taskBytes = taskWriter.writeValueAsBytes(task);
+        taskPageBytes = taskListWriter.writeValueAsBytes(tasks);
+    }
+
+    private static Task task(long id) {
+        Task task = new Task("Task " + id, "Description of task " + id,
+                LocalDateTime.of(2030, 1, 1, 12, 0).plusHours(id), TaskStatus.IN_PROGRESS);
+        task.setId(id);
+        task.setVersion(3L);
+        return task;
+    }
+
+    @Benchmark
+    public byte[] encodeTask() throws Exception {
+        return taskWriter.writeValueAsBytes(task);
+    }
+
+    @Benchmark
+    public Task decodeTask() throws Exception {
+        return taskReader.readValue(taskBytes);
+    }
+
+    @Benchmark
+    public byte[] encodeTaskPage(PayloadSizes sizes) throws Exception {
+        return taskListWriter.writeValueAsBytes(tasks);
+    }
+
+    @Benchmark
+    public List<Task> decodeTaskPage() throws Exception {
+        return taskListReader.readValue(taskPageBytes);
+    }
+}
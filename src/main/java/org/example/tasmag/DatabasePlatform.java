@@ -0,0 +1,42 @@
+package org.example.tasmag;
+
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+/**
+ * Describes the database the application is connected to.
+ * Used to choose between PostgreSQL specific statements and portable fallbacks,
+ * such as the H2 database used by the tests.
+ */
+@Component
+public class DatabasePlatform {
+
+    private final DatabaseDriver driver;
+
+    public DatabasePlatform(DataSource dataSource) {
+        this.driver = detectDriver(dataSource);
+    }
+
+    private static DatabaseDriver detectDriver(DataSource dataSource) {
+        try {
+            String productName = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return DatabaseDriver.fromProductName(productName);
+        } catch (MetaDataAccessException e) {
+            return DatabaseDriver.UNKNOWN;
+        }
+    }
+
+    /**
+     * Checks if the application is connected to PostgreSQL.
+     *
+     * @return true if PostgreSQL specific features may be used, false otherwise
+     */
+    public boolean isPostgreSql() {
+        return driver == DatabaseDriver.POSTGRESQL;
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.tasmag;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Sparse field selection of response bodies, requested by the {@value #PARAMETER} query parameter,
+ * e.g. {@code ?fields=id,name,status}.
+ * Classes annotated with {@code @JsonFilter(FieldSelection.FILTER_ID)} are written with the selected properties only.
+ * The properties left out are skipped by the serializer, so they are neither read nor formatted,
+ * which matters most for dates and long descriptions in large listings.
+ */
+public final class FieldSelection {
+
+    /**
+     * Name of the query parameter listing the selected properties, separated by commas.
+     */
+    public static final String PARAMETER = "fields";
+
+    /**
+     * ID of the Jackson filter applying the selection.
+     */
+    public static final String FILTER_ID = "fieldSelection";
+
+    /**
+     * Filters writing all properties, used when no fields are selected.
+     */
+    public static final FilterProvider ALL_FIELDS =
+            new SimpleFilterProvider().addFilter(FILTER_ID, SimpleBeanPropertyFilter.serializeAll());
+
+    private FieldSelection() {
+    }
+
+    /**
+     * Creates the filters writing only the given properties.
+     *
+     * @param fields the value of the {@value #PARAMETER} parameter, may be null
+     * @return the filters, or null if the parameter is missing or lists no property
+     */
+    public static FilterProvider filters(String fields) {
+        if (fields == null) {
+            return null;
+        }
+        Set<String> names = Arrays.stream(fields.split(","))
+                .map(String::strip)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        if (names.isEmpty()) {
+            return null;
+        }
+        return new SimpleFilterProvider().addFilter(FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(names));
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.tasmag;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+/**
+ * Applies the {@link FieldSelection} requested by the {@value FieldSelection#PARAMETER} query parameter
+ * to the JSON bodies returned by the controllers.
+ * Responses of requests without the parameter are written with all properties.
+ */
+@RestControllerAdvice
+public class FieldSelectionAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    /**
+     * Registers the filters writing all properties as the default of the application object mapper,
+     * so classes taking part in the selection are written in full wherever no selection applies.
+     */
+    @Bean
+    public static Jackson2ObjectMapperBuilderCustomizer fieldSelectionDefaults() {
+        return builder -> builder.filters(FieldSelection.ALL_FIELDS);
+    }
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+                                           MethodParameter returnType, ServerHttpRequest request,
+                                           ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest) {
+            HttpServletRequest httpRequest = servletRequest.getServletRequest();
+            FilterProvider filters = FieldSelection.filters(httpRequest.getParameter(FieldSelection.PARAMETER));
+            if (filters != null) {
+                bodyContainer.setFilters(filters);
+            }
+        }
+    }
+}
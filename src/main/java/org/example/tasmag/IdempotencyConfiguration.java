@@ -0,0 +1,34 @@
+package org.example.tasmag;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+/**
+ * Provides the {@link IdempotencyStore} chosen by {@code tasmag.idempotency.store}:
+ * {@code memory}, the default, for a single instance, or {@code jdbc} for several instances sharing the database.
+ */
+@Configuration(proxyBeanMethods = false)
+public class IdempotencyConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tasmag.idempotency", name = "store", havingValue = "memory", matchIfMissing = true)
+    public InMemoryIdempotencyStore inMemoryIdempotencyStore(
+            @Value("${tasmag.idempotency.ttl:24h}") Duration ttl,
+            @Value("${tasmag.idempotency.max-keys:100000}") long maxKeys) {
+        return new InMemoryIdempotencyStore(ttl, maxKeys);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tasmag.idempotency", name = "store", havingValue = "jdbc")
+    public JdbcIdempotencyStore jdbcIdempotencyStore(
+            JdbcTemplate jdbcTemplate,
+            @Value("${tasmag.idempotency.ttl:24h}") Duration ttl,
+            @Value("${tasmag.idempotency.pending-timeout:1m}") Duration pendingTimeout) {
+        return new JdbcIdempotencyStore(jdbcTemplate, ttl, pendingTimeout);
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.tasmag;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+
+/**
+ * Computes the fingerprint of requests carrying an {@value IdempotencyStore#HEADER} header,
+ * which the {@link IdempotencyStore} binds their key to.
+ * <p>
+ * The fingerprint covers the method, the path and the request body as sent, so a retry has to repeat the body
+ * byte for byte. It leaves out the client, whose address may change between retries. The body is read before
+ * it is converted and handed on to the converter unchanged. The fingerprint is an HMAC-SHA256 rather than
+ * a plain hash, since the body of a new user contains the password; its key is
+ * {@code tasmag.idempotency.fingerprint-secret}, or a random one per instance if it isn't set. The {@code jdbc}
+ * store shares fingerprints between instances and restarts, so it requires the secret.
+ */
+@RestControllerAdvice
+public class IdempotencyFingerprintAdvice extends RequestBodyAdviceAdapter {
+
+    private static final String ATTRIBUTE = IdempotencyFingerprintAdvice.class.getName() + ".FINGERPRINT";
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec secret;
+
+    public IdempotencyFingerprintAdvice(@Value("${tasmag.idempotency.fingerprint-secret:}") String secret,
+                                        @Value("${tasmag.idempotency.store:memory}") String store) {
+        byte[] key = secret.getBytes(StandardCharsets.UTF_8);
+        if (secret.isBlank() && "jdbc".equals(store)) {
+            throw new IllegalStateException(
+                    "tasmag.idempotency.fingerprint-secret must be set for tasmag.idempotency.store=jdbc");
+        }
+        if (key.length == 0) {
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+        }
+        this.secret = new SecretKeySpec(key, ALGORITHM);
+    }
+
+    /**
+     * Returns the fingerprint of a request, computed when its body was read.
+     *
+     * @param request The request carrying an idempotency key.
+     * @return The fingerprint of the request.
+     * @throws IllegalStateException if the body of the request hasn't been read.
+     */
+    public static String fingerprint(HttpServletRequest request) {
+        Object fingerprint = request.getAttribute(ATTRIBUTE);
+        if (fingerprint == null) {
+            throw new IllegalStateException("No fingerprint for a request without a body or " + IdempotencyStore.HEADER);
+        }
+        return (String) fingerprint;
+    }
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) throws IOException {
+        if (inputMessage.getHeaders().getFirst(IdempotencyStore.HEADER) == null
+                || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return inputMessage;
+        }
+        byte[] body = inputMessage.getBody().readAllBytes();
+        HttpServletRequest request = attributes.getRequest();
+        request.setAttribute(ATTRIBUTE, fingerprint(request.getMethod() + ' ' + request.getRequestURI(), body));
+        return new HttpInputMessage() {
+            @Override
+            public InputStream getBody() {
+                return new ByteArrayInputStream(body);
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return inputMessage.getHeaders();
+            }
+        };
+    }
+
+    private String fingerprint(String target, byte[] body) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(secret);
+            mac.update(target.getBytes(StandardCharsets.UTF_8));
+            // separates the method and path from the body
+            mac.update((byte) 0);
+            return HexFormat.of().formatHex(mac.doFinal(body));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+}
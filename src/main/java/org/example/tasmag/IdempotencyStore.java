@@ -0,0 +1,95 @@
+package org.example.tasmag;
+
+/**
+ * Remembers the resources created by requests carrying an {@value #HEADER} header,
+ * so that a client retrying such a request gets the resource created by the first attempt
+ * instead of creating it again.
+ * <p>
+ * A request first {@link #reserve reserves} its key. If it wins the reservation, it creates the resource and
+ * {@link #complete completes} the key with the ID of the resource, or {@link #release releases} the key
+ * if the creation failed, so that a retry can try again. Keys are forgotten after a time to live.
+ * Keys are independent per scope, such as tasks and users.
+ * <p>
+ * A key is bound to the fingerprint of the request reserving it, covering the method, the path and the request body,
+ * see {@link IdempotencyFingerprintAdvice}. A request reusing the key of a different request is refused
+ * rather than answered with the resource of the other request.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Name of the request header carrying the key chosen by the client.
+     */
+    String HEADER = "Idempotency-Key";
+
+    /**
+     * Name of the response header marking a response to a repeated request.
+     */
+    String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    /**
+     * Maximum length of a key.
+     */
+    int MAX_KEY_LENGTH = 255;
+
+    /**
+     * Reserves a key for a request about to create a resource.
+     *
+     * @param scope The kind of resources the key belongs to.
+     * @param key The key sent by the client.
+     * @param fingerprint The fingerprint of the request.
+     * @return {@link Reservation.Acquired} if the caller has to create the resource,
+     *         {@link Reservation.Mismatch} if the key was reserved by a request with another fingerprint,
+     *         {@link Reservation.Pending} if an earlier request with the same key is still creating it,
+     *         or {@link Reservation.Completed} with the ID of the resource created by an earlier request.
+     */
+    Reservation reserve(String scope, String key, String fingerprint);
+
+    /**
+     * Records the resource created by the request that acquired a key.
+     *
+     * @param scope The kind of resources the key belongs to.
+     * @param key The key sent by the client.
+     * @param resourceId The ID of the created resource.
+     */
+    void complete(String scope, String key, long resourceId);
+
+    /**
+     * Releases a key acquired by a request that failed to create its resource.
+     *
+     * @param scope The kind of resources the key belongs to.
+     * @param key The key sent by the client.
+     */
+    void release(String scope, String key);
+
+    /**
+     * State of a key when it was reserved.
+     */
+    sealed interface Reservation {
+
+        /**
+         * The key was unknown and is now reserved by the caller.
+         */
+        record Acquired() implements Reservation {
+        }
+
+        /**
+         * The key is reserved by a request that hasn't completed yet.
+         */
+        record Pending() implements Reservation {
+        }
+
+        /**
+         * The key was reserved by a request with another fingerprint, to another path or with another body.
+         */
+        record Mismatch() implements Reservation {
+        }
+
+        /**
+         * The key was used by a request that created the resource with the given ID.
+         *
+         * @param resourceId The ID of the created resource.
+         */
+        record Completed(long resourceId) implements Reservation {
+        }
+    }
+}
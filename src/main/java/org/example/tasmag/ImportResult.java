@@ -0,0 +1,9 @@
+package org.example.tasmag;
+
+/**
+ * Outcome of a bulk import of tasks or users.
+ *
+ * @param imported Number of imported rows.
+ */
+public record ImportResult(long imported) {
+}
@@ -0,0 +1,61 @@
+package org.example.tasmag;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link IdempotencyStore} keeping the keys in memory, for deployments with a single instance.
+ * <p>
+ * Keys are evicted once their time to live has passed, or earlier, least recently used first,
+ * when more than the maximum number of keys are kept. A key evicted early is treated as unknown,
+ * so the store bounds the memory used at the cost of not recognising every retry under heavy load.
+ */
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final ConcurrentMap<String, Entry> reservations;
+
+    /**
+     * @param ttl Time after which a key is forgotten.
+     * @param maxKeys Maximum number of keys kept.
+     */
+    public InMemoryIdempotencyStore(Duration ttl, long maxKeys) {
+        this.reservations = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxKeys)
+                .<String, Entry>build()
+                .asMap();
+    }
+
+    @Override
+    public Reservation reserve(String scope, String key, String fingerprint) {
+        Entry existing = reservations.putIfAbsent(scope + ' ' + key, new Entry(fingerprint, null));
+        if (existing == null) {
+            return new Reservation.Acquired();
+        }
+        if (!existing.fingerprint().equals(fingerprint)) {
+            return new Reservation.Mismatch();
+        }
+        return existing.resourceId() != null ? new Reservation.Completed(existing.resourceId()) : new Reservation.Pending();
+    }
+
+    @Override
+    public void complete(String scope, String key, long resourceId) {
+        reservations.computeIfPresent(scope + ' ' + key, (ignored, entry) -> new Entry(entry.fingerprint(), resourceId));
+    }
+
+    @Override
+    public void release(String scope, String key) {
+        reservations.computeIfPresent(scope + ' ' + key, (ignored, entry) -> entry.resourceId() != null ? entry : null);
+    }
+
+    /**
+     * A reserved key.
+     *
+     * @param fingerprint The fingerprint of the request that reserved the key.
+     * @param resourceId The ID of the created resource, null while the request is still creating it.
+     */
+    private record Entry(String fingerprint, Long resourceId) {
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.tasmag;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * {@link IdempotencyStore} keeping the keys in the {@code idempotency_key} table,
+ * so that a retry is recognised by every instance of the application, whichever served the first attempt.
+ * <p>
+ * A key is reserved by inserting its row, and the primary key of the table decides between concurrent requests.
+ * Every statement runs in a transaction of its own, committed before the resource is created,
+ * so that concurrent requests see the reservation immediately.
+ * A reservation left behind by an instance stopped while creating a resource is given up after
+ * the pending timeout. Expired keys are deleted every {@code tasmag.idempotency.purge-interval-ms} milliseconds.
+ */
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+    private static final String DELETE_EXPIRED_KEY_SQL = "DELETE FROM idempotency_key"
+            + " WHERE scope = ? AND idempotency_key = ?"
+            + " AND (created_at < ? OR (resource_id IS NULL AND created_at < ?))";
+
+    private static final String INSERT_SQL = "INSERT INTO idempotency_key"
+            + " (scope, idempotency_key, request_fingerprint, created_at) VALUES (?, ?, ?, ?)";
+
+    private static final String SELECT_SQL = "SELECT resource_id, request_fingerprint FROM idempotency_key"
+            + " WHERE scope = ? AND idempotency_key = ?";
+
+    private static final String COMPLETE_SQL = "UPDATE idempotency_key SET resource_id = ?"
+            + " WHERE scope = ? AND idempotency_key = ?";
+
+    private static final String RELEASE_SQL = "DELETE FROM idempotency_key"
+            + " WHERE scope = ? AND idempotency_key = ? AND resource_id IS NULL";
+
+    private static final String PURGE_SQL = "DELETE FROM idempotency_key WHERE created_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration ttl;
+    private final Duration pendingTimeout;
+
+    /**
+     * @param jdbcTemplate Template running the statements outside of any transaction of the caller.
+     * @param ttl Time after which a key is forgotten.
+     * @param pendingTimeout Time after which a key reserved by a request that never completed may be reserved again.
+     */
+    public JdbcIdempotencyStore(JdbcTemplate jdbcTemplate, Duration ttl, Duration pendingTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = ttl;
+        this.pendingTimeout = pendingTimeout;
+    }
+
+    @Override
+    public Reservation reserve(String scope, String key, String fingerprint) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(DELETE_EXPIRED_KEY_SQL, scope, key,
+                Timestamp.valueOf(now.minus(ttl)), Timestamp.valueOf(now.minus(pendingTimeout)));
+        try {
+            jdbcTemplate.update(INSERT_SQL, scope, key, fingerprint, Timestamp.valueOf(now));
+            return new Reservation.Acquired();
+        } catch (DuplicateKeyException e) {
+            // reserved by an earlier request, possibly one completing right now
+            List<Reservation> reservations = jdbcTemplate.query(SELECT_SQL, (row, rowNum) -> {
+                String reservedFingerprint = row.getString("request_fingerprint");
+                // keys reserved before fingerprints were recorded have none and match any request
+                if (reservedFingerprint != null && !reservedFingerprint.equals(fingerprint)) {
+                    return new Reservation.Mismatch();
+                }
+                long resourceId = row.getLong("resource_id");
+                return row.wasNull() ? new Reservation.Pending() : new Reservation.Completed(resourceId);
+            }, scope, key);
+            return reservations.isEmpty() ? new Reservation.Pending() : reservations.get(0);
+        }
+    }
+
+    @Override
+    public void complete(String scope, String key, long resourceId) {
+        jdbcTemplate.update(COMPLETE_SQL, resourceId, scope, key);
+    }
+
+    @Override
+    public void release(String scope, String key) {
+        jdbcTemplate.update(RELEASE_SQL, scope, key);
+    }
+
+    /**
+     * Deletes all keys whose time to live has passed.
+     *
+     * @return The number of deleted keys.
+     */
+    @Scheduled(initialDelayString = "${tasmag.idempotency.purge-interval-ms:600000}",
+            fixedDelayString = "${tasmag.idempotency.purge-interval-ms:600000}")
+    public int purge() {
+        return jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(LocalDateTime.now().minus(ttl)));
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.tasmag;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor used for keyset pagination over entity IDs.
+ * A cursor encodes the ID of the last row of a page, so the next page can be read with {@code id > lastId}
+ * using the primary key index instead of skipping rows with an offset.
+ */
+public final class KeysetCursor {
+
+    /**
+     * Number of rows returned per page when the client doesn't ask for a specific limit.
+     */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * Upper bound for the page size requested by a client.
+     */
+    public static final int MAX_LIMIT = 1000;
+
+    private static final String PREFIX = "id:";
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * Encodes the ID of the last returned row into an opaque cursor.
+     *
+     * @param lastId the ID of the last row of the current page
+     * @return the cursor pointing behind the given row
+     */
+    public static String encode(long lastId) {
+        byte[] raw = (PREFIX + lastId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * Decodes a cursor previously created by {@link #encode(long)}.
+     *
+     * @param cursor the cursor sent by the client, may be null or blank for the first page
+     * @return the ID after which the next page starts, or 0 for the first page
+     * @throws ResponseStatusException with status 400 BAD REQUEST if the cursor is malformed
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (decoded.startsWith(PREFIX)) {
+                return Long.parseLong(decoded.substring(PREFIX.length()));
+            }
+        } catch (IllegalArgumentException e) {
+            // falls through to the bad request below, NumberFormatException included
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+    }
+
+    /**
+     * Clamps the page size requested by a client to the range 1..{@link #MAX_LIMIT}.
+     *
+     * @param limit the requested page size
+     * @return the page size to use
+     */
+    public static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Builds the value of a {@code Link} header pointing to the page following the given row.
+     * The link repeats the current request with its {@code after} parameter replaced.
+     *
+     * @param lastId the ID of the last row of the current page
+     * @return the link header value with relation type {@code next}
+     */
+    public static String nextPageLink(long lastId) {
+        String uri = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", encode(lastId))
+                .toUriString();
+        return "<" + uri + ">; rel=\"next\"";
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.tasmag;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the application metrics beyond those recorded by Spring Boot.
+ * Enables the {@link io.micrometer.core.annotation.Timed} annotation, which records the latency
+ * of every method of the annotated service classes in the {@value #SERVICE_TIMER} timer.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfiguration {
+
+    /**
+     * Name of the timer recording service method calls, tagged with the class and method name.
+     */
+    public static final String SERVICE_TIMER = "tasmag.service";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.tasmag;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Installs the {@link RateLimitFilter} in front of the task and user API,
+ * unless {@code tasmag.rate-limit.enabled} is false.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfiguration {
+
+    /**
+     * Registers the filter for the API paths only, after the filter observing requests,
+     * so that rejected requests are recorded in the {@code http.server.requests} metrics too.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "tasmag.rate-limit", name = "enabled", matchIfMissing = true)
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimitProperties properties,
+                                                                   MeterRegistry meterRegistry) {
+        FilterRegistrationBean<RateLimitFilter> registration =
+                new FilterRegistrationBean<>(new RateLimitFilter(properties, meterRegistry));
+        registration.addUrlPatterns("/api/v1/tasks/*", "/users/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
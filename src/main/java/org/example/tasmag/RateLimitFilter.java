@@ -0,0 +1,150 @@
+package org.example.tasmag;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control in front of the task and user API, so that a single client can't exhaust
+ * the connection pool and take the latency of all other clients down with it.
+ * <p>
+ * Every client, identified by its address, gets a {@link TokenBucket} per route. Behind one of
+ * the {@link RateLimitProperties#trustedProxies()}, the client is identified by the
+ * {@link RateLimitProperties#clientHeader()} header set by the proxy instead. Requests beyond the rate of their route are rejected with
+ * {@code 429 Too Many Requests} and a {@code Retry-After} header. The buckets of the clients seen most recently
+ * are kept in a bounded cache; a client whose bucket was dropped starts again with a full one.
+ * <p>
+ * Requests within their rate then need one of {@link RateLimitProperties#maxConcurrentRequests()} permits,
+ * shared by all clients. When none is free within {@link RateLimitProperties#admissionTimeout()}, the request
+ * is shed with {@code 503 Service Unavailable} instead of queueing for a database connection.
+ * The permit is held until the request thread leaves the controller; the asynchronous part of a request,
+ * such as password hashing, runs outside of it.
+ * <p>
+ * Rejected requests are counted by the {@value #REJECTED_COUNTER} counter, tagged with the reason and route.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public static final String REJECTED_COUNTER = "tasmag.rate-limit.rejected";
+    public static final String IN_FLIGHT_GAUGE = "tasmag.rate-limit.in-flight";
+
+    private static final String DEFAULT_ROUTE = "default";
+
+    private final RateLimitProperties properties;
+    private final List<RouteLimit> routes;
+    private final List<PathPattern> excludedPaths;
+    private final Cache<String, TokenBucket> buckets;
+    private final Semaphore permits;
+    private final long admissionTimeoutNanos;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.routes = properties.routes().stream().map(RouteLimit::new).toList();
+        this.excludedPaths = properties.excludedPaths().stream().map(PathPatternParser.defaultInstance::parse).toList();
+        this.buckets = Caffeine.newBuilder().maximumSize(properties.maxClients()).build();
+        this.permits = new Semaphore(properties.maxConcurrentRequests());
+        this.admissionTimeoutNanos = properties.admissionTimeout().toNanos();
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gauge(IN_FLIGHT_GAUGE, permits,
+                semaphore -> properties.maxConcurrentRequests() - semaphore.availablePermits());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        PathContainer path = PathContainer.parsePath(UrlPathHelper.defaultInstance.getPathWithinApplication(request));
+        return excludedPaths.stream().anyMatch(pattern -> pattern.matches(path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        PathContainer path = PathContainer.parsePath(UrlPathHelper.defaultInstance.getPathWithinApplication(request));
+        RouteLimit route = routes.stream()
+                .filter(candidate -> candidate.matches(request.getMethod(), path))
+                .findFirst()
+                .orElse(null);
+        String routeName = route != null ? route.name : DEFAULT_ROUTE;
+
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(properties.clientOf(request) + ' ' + routeName, key -> route != null
+                ? new TokenBucket(route.capacity, route.refillPerSecond, now)
+                : new TokenBucket(properties.capacity(), properties.refillPerSecond(), now));
+        long waitNanos = bucket.tryAcquire(now);
+        if (waitNanos > 0) {
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, Duration.ofNanos(waitNanos), "rate", routeName);
+            return;
+        }
+
+        if (!acquirePermit()) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, Duration.ofSeconds(1), "concurrency", routeName);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean acquirePermit() {
+        if (admissionTimeoutNanos <= 0) {
+            return permits.tryAcquire();
+        }
+        try {
+            return permits.tryAcquire(admissionTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, Duration retryAfter,
+                        String reason, String route) throws IOException {
+        meterRegistry.counter(REJECTED_COUNTER, "reason", reason, "route", route).increment();
+        // Retry-After is in whole seconds, rounded up so that a client honouring it finds a token
+        long seconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        response.sendError(status.value());
+    }
+
+    /**
+     * A configured route with its parsed path pattern.
+     */
+    private static final class RouteLimit {
+
+        private final String method;
+        private final PathPattern pattern;
+        private final String name;
+        private final int capacity;
+        private final double refillPerSecond;
+
+        private RouteLimit(RateLimitProperties.Route route) {
+            this.method = route.method();
+            this.pattern = PathPatternParser.defaultInstance.parse(route.pattern());
+            this.name = (method != null ? method + " " : "") + route.pattern();
+            this.capacity = route.capacity();
+            this.refillPerSecond = route.refillPerSecond();
+        }
+
+        private boolean matches(String requestMethod, PathContainer path) {
+            return (method == null || method.equalsIgnoreCase(requestMethod)) && pattern.matches(path);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.tasmag;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings of the {@link RateLimitFilter}, bound from the {@code tasmag.rate-limit} properties.
+ *
+ * @param enabled Whether the filter is installed at all.
+ * @param clientHeader Request header identifying the client, set by a trusted proxy in front of the application.
+ * @param trustedProxies Addresses of the proxies whose client header is honoured. Requests from any other address,
+ *                       or without the header, are identified by their remote address, since clients can set
+ *                       the header to whatever they like.
+ * @param maxClients Maximum number of clients whose buckets are kept in memory, the least recently seen are dropped.
+ * @param capacity Number of requests a client can make at once on routes without a limit of their own.
+ * @param refillPerSecond Number of requests per second a client can sustain on routes without a limit of their own.
+ * @param routes Limits of specific routes, the first one matching a request applies.
+ * @param maxConcurrentRequests Maximum number of requests of all clients processed at the same time.
+ * @param admissionTimeout How long a request waits for one of the concurrent requests to finish before it is shed.
+ * @param excludedPaths Path patterns of long-lived requests that are neither rate limited nor counted as concurrent.
+ */
+@ConfigurationProperties("tasmag.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("X-Client-Id") String clientHeader,
+        @DefaultValue List<String> trustedProxies,
+        @DefaultValue("100000") long maxClients,
+        @DefaultValue("100") int capacity,
+        @DefaultValue("50") double refillPerSecond,
+        @DefaultValue List<Route> routes,
+        @DefaultValue("32") int maxConcurrentRequests,
+        @DefaultValue("0ms") Duration admissionTimeout,
+        @DefaultValue("/api/v1/tasks/events") List<String> excludedPaths) {
+
+    /**
+     * Identifies the client of a request, by its address or by the client header set by a trusted proxy.
+     *
+     * @param request The request.
+     * @return The identity of the client.
+     */
+    public String clientOf(HttpServletRequest request) {
+        String address = request.getRemoteAddr();
+        if (!trustedProxies.contains(address)) {
+            // the header of a direct request is ignored, a client could pretend to be any other with it
+            return address;
+        }
+        String client = request.getHeader(clientHeader);
+        return client != null && !client.isBlank() ? client : address;
+    }
+
+    /**
+     * Limit of a single route.
+     *
+     * @param method HTTP method of the route, any method if null.
+     * @param pattern Path pattern of the route, e.g. {@code /api/v1/tasks/{id}}.
+     * @param capacity Number of requests a client can make at once.
+     * @param refillPerSecond Number of requests per second a client can sustain.
+     */
+    public record Route(String method, String pattern, int capacity, double refillPerSecond) {
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.tasmag;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Keeps the beans the application can't do without initialized at startup when {@code spring.main.lazy-initialization}
+ * is enabled, as by the {@code fast-start} profile. All other beans, such as controllers and services,
+ * are created by the first request needing them.
+ * <ul>
+ *     <li>The entity manager factory, so that Flyway migrates and Hibernate validates the schema before the instance
+ *     reports ready, and the first request doesn't pay for booting Hibernate.</li>
+ *     <li>Beans with {@link Scheduled} methods, such as the {@code TaskOverdueSweeper}, which are scheduled only once
+ *     they exist and aren't needed by any request.</li>
+ * </ul>
+ */
+@Configuration(proxyBeanMethods = false)
+public class StartupConfiguration {
+
+    /**
+     * Static, since the filter is applied by a bean factory post-processor before other beans are created.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeans() {
+        LazyInitializationExcludeFilter persistence = LazyInitializationExcludeFilter.forBeanTypes(EntityManagerFactory.class);
+        return (beanName, beanDefinition, beanType) ->
+                persistence.isExcluded(beanName, beanDefinition, beanType) || hasScheduledMethods(beanType);
+    }
+
+    private static boolean hasScheduledMethods(Class<?> beanType) {
+        if (beanType == null || !AnnotationUtils.isCandidateClass(beanType, Scheduled.class)) {
+            return false;
+        }
+        return !MethodIntrospector.selectMethods(beanType, (MethodIntrospector.MetadataLookup<Scheduled>) method ->
+                AnnotatedElementUtils.findMergedAnnotation(method, Scheduled.class)).isEmpty();
+    }
+}
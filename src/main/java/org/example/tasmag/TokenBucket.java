@@ -0,0 +1,52 @@
+package org.example.tasmag;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket rate limiter holding its whole state in a single atomic number, updated without locks.
+ * <p>
+ * Instead of a token count refilled by a timer, the bucket keeps the time at which it will be full again,
+ * as in the generic cell rate algorithm. Every permitted request moves that time one refill interval ahead;
+ * a request is rejected if it would move it further than {@code capacity} intervals beyond now.
+ * This is equivalent to a bucket of {@code capacity} tokens refilled at a constant rate.
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long capacityNanos;
+    private final AtomicLong fullAt;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param capacity Number of requests permitted at once.
+     * @param refillPerSecond Number of requests permitted per second in the long run.
+     * @param now The current time of {@link System#nanoTime()}.
+     */
+    TokenBucket(int capacity, double refillPerSecond, long now) {
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000 / refillPerSecond));
+        this.capacityNanos = capacity * intervalNanos;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Takes a token if there is one.
+     *
+     * @param now The current time of {@link System#nanoTime()}.
+     * @return 0 if a token was taken, otherwise the time in nanoseconds until the next token is available.
+     */
+    long tryAcquire(long now) {
+        while (true) {
+            long current = fullAt.get();
+            // times are compared by their difference, as nanoTime values may overflow
+            long next = (current - now > 0 ? current : now) + intervalNanos;
+            long ahead = next - now;
+            if (ahead > capacityNanos) {
+                return ahead - capacityNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
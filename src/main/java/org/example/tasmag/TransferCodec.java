@@ -0,0 +1,124 @@
+package org.example.tasmag;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvFactory;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Writes and reads sequences of tasks or users in one of the {@link TransferFormat}s, one row at a time,
+ * so that exports and imports of any size use constant memory.
+ * <p>
+ * The CSV mapper is created from the object mapper builder of the application, like the CBOR one,
+ * so both formats carry the same properties and values as the JSON responses. Empty CSV values are read as null.
+ */
+@Component
+public class TransferCodec {
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper csvMapper;
+
+    public TransferCodec(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder builder) {
+        this.jsonMapper = objectMapper;
+        this.csvMapper = builder.factory(new CsvFactory()).build();
+    }
+
+    /**
+     * Creates a writer of values of the given type, with all their properties.
+     * CSV starts with a header line naming the columns, NDJSON writes one value per line.
+     *
+     * @param format The format to write.
+     * @param type The type of the written values.
+     * @param columns The properties written as CSV columns, in order. Other properties are left out.
+     * @param output The stream to write to, not closed by the writer.
+     * @return The writer, to be closed once all values are written.
+     * @throws IOException if writing to the stream fails.
+     */
+    public SequenceWriter writer(TransferFormat format, Class<?> type, List<String> columns, OutputStream output)
+            throws IOException {
+        return writer(format, type, columns, true, output);
+    }
+
+    /**
+     * Creates a writer of values of the given type, with all their properties.
+     *
+     * @param format The format to write.
+     * @param type The type of the written values.
+     * @param columns The properties written as CSV columns, in order. Other properties are left out.
+     * @param header Whether CSV starts with a header line.
+     * @param output The stream to write to, not closed by the writer.
+     * @return The writer, to be closed once all values are written.
+     * @throws IOException if writing to the stream fails.
+     */
+    public SequenceWriter writer(TransferFormat format, Class<?> type, List<String> columns, boolean header,
+                                 OutputStream output) throws IOException {
+        ObjectWriter writer = switch (format) {
+            case CSV -> csvMapper.writerFor(type)
+                    .with(header ? schema(columns).withHeader() : schema(columns).withoutHeader())
+                    .with(JsonGenerator.Feature.IGNORE_UNKNOWN);
+            case NDJSON -> jsonMapper.writerFor(type).withRootValueSeparator("\n");
+        };
+        return writer.with(FieldSelection.ALL_FIELDS)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValues(output);
+    }
+
+    /**
+     * Creates a reader of values of the given type.
+     * CSV has to start with a header line naming the properties of the columns.
+     *
+     * @param format The format to read.
+     * @param type The type of the read values.
+     * @param input The stream to read from.
+     * @return The iterator over the values, to be closed once all values are read.
+     * @throws IOException if reading from the stream fails.
+     */
+    public <T> MappingIterator<T> reader(TransferFormat format, Class<T> type, InputStream input) throws IOException {
+        return switch (format) {
+            case CSV -> csvMapper.readerFor(type)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .with(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+                    .readValues(input);
+            case NDJSON -> jsonMapper.readerFor(type).readValues(input);
+        };
+    }
+
+    /**
+     * Decodes a request body sent with a {@code Content-Encoding}, which the server doesn't do by itself.
+     *
+     * @param body The body as received.
+     * @param contentEncoding The value of the {@code Content-Encoding} header, null if there is none.
+     * @return The decoded body.
+     * @throws IOException if the body isn't encoded as declared.
+     * @throws IllegalArgumentException if the encoding isn't supported.
+     */
+    public static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+        if (contentEncoding == null || contentEncoding.isBlank() || contentEncoding.equalsIgnoreCase("identity")) {
+            return body;
+        }
+        if (contentEncoding.equalsIgnoreCase("gzip")) {
+            return new GZIPInputStream(body, 64 * 1024);
+        }
+        throw new IllegalArgumentException("Unsupported content encoding: " + contentEncoding);
+    }
+
+    private static CsvSchema schema(List<String> columns) {
+        CsvSchema.Builder builder = CsvSchema.builder();
+        columns.forEach(builder::addColumn);
+        return builder.build();
+    }
+}
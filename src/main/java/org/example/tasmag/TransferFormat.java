@@ -0,0 +1,72 @@
+package org.example.tasmag;
+
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+/**
+ * Formats of the bulk exports and imports of tasks and users.
+ */
+public enum TransferFormat {
+
+    /**
+     * Comma-separated values with a header line naming the columns, as read by spreadsheets and {@code COPY}.
+     */
+    CSV(MediaType.parseMediaType(TransferFormat.TEXT_CSV_VALUE)),
+
+    /**
+     * Newline-delimited JSON with one object per line, the same representation as the other endpoints.
+     */
+    NDJSON(MediaType.APPLICATION_NDJSON);
+
+    /**
+     * Media type of CSV bodies.
+     */
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final MediaType mediaType;
+
+    TransferFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Returns the extension of files in this format, used to name exports.
+     *
+     * @return The extension, without the dot.
+     */
+    public String getFileExtension() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Looks up a format by its name, ignoring case.
+     *
+     * @param name The name of the format, {@code csv} or {@code ndjson}.
+     * @return The format.
+     * @throws IllegalArgumentException if there is no format with the given name.
+     */
+    public static TransferFormat fromName(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Looks up the format of a request body by its content type.
+     *
+     * @param contentType The content type of the body.
+     * @return The format.
+     * @throws IllegalArgumentException if the content type isn't the type of any format.
+     */
+    public static TransferFormat fromMediaType(MediaType contentType) {
+        for (TransferFormat format : values()) {
+            if (format.mediaType.isCompatibleWith(contentType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported content type: " + contentType);
+    }
+}
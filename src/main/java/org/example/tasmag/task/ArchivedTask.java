@@ -0,0 +1,83 @@
+package org.example.tasmag.task;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing a finished task moved to the {@code task_archive} table by the {@link TaskArchiver}.
+ * It keeps the ID and all fields the task had, and is read as a {@link Task} through {@link #toTask()}.
+ */
+@Entity
+@Table(name = "task_archive", indexes = {
+        @Index(name = "idx_task_archive_owner_id", columnList = "owner_id"),
+        @Index(name = "idx_task_archive_assignee_id", columnList = "assignee_id")
+})
+public class ArchivedTask {
+
+    /**
+     * The ID the task had in the {@code task} table.
+     */
+    @Id
+    private Long id;
+
+    private String name;
+
+    private String description;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "due_date")
+    private LocalDateTime dueDate;
+
+    @Enumerated(EnumType.STRING)
+    private TaskStatus status;
+
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    @Column(name = "assignee_id")
+    private Long assigneeId;
+
+    /**
+     * The version of the task when it was archived. Archived tasks don't change, so it isn't used for locking.
+     */
+    @Column(nullable = false)
+    private Long version;
+
+    /**
+     * The date and the time when the task was archived.
+     */
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    /**
+     * Default constructor for JPA. Archived tasks are only created by the archiver's statements.
+     */
+    protected ArchivedTask() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    /**
+     * Converts the archived task into a detached task with the same ID, fields and version.
+     *
+     * @return The task as it was when it was archived.
+     */
+    public Task toTask() {
+        Task task = new Task(name, description, dueDate, status);
+        task.setId(id);
+        task.setCreatedAt(createdAt);
+        task.setOwnerId(ownerId);
+        task.setAssigneeId(assigneeId);
+        task.setVersion(version);
+        return task;
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.tasmag.task;
+
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Repository interface for reading archived tasks.
+ * Extends JpaSpecificationExecutor to list archived tasks matching a {@link TaskFilter}.
+ * Tasks are moved to the archive by the {@link TaskArchiver}, not through this repository.
+ */
+public interface ArchivedTaskRepository extends CrudRepository<ArchivedTask, Long>, JpaSpecificationExecutor<ArchivedTask> {
+
+    /**
+     * Counts archived tasks for every status that at least one archived task has.
+     *
+     * @return The number of archived tasks per status.
+     */
+    @Query("SELECT t.status AS status, COUNT(t) AS count FROM ArchivedTask t GROUP BY t.status")
+    List<TaskStatusCount> countByStatus();
+
+    /**
+     * Moves all archived tasks owned by one user to another user in a single statement.
+     *
+     * @param fromUserId The ID of the current owner.
+     * @param toUserId The ID of the new owner, or null to leave the tasks without an owner.
+     * @return The number of updated tasks.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ArchivedTask t SET t.ownerId = :toUserId WHERE t.ownerId = :fromUserId")
+    int reassignOwner(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId);
+
+    /**
+     * Moves all archived tasks assigned to one user to another user in a single statement.
+     *
+     * @param fromUserId The ID of the current assignee.
+     * @param toUserId The ID of the new assignee, or null to leave the tasks unassigned.
+     * @return The number of updated tasks.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ArchivedTask t SET t.assigneeId = :toUserId WHERE t.assigneeId = :fromUserId")
+    int reassignAssignee(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId);
+}
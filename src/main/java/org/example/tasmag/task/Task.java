@@ -1,17 +1,36 @@
 package org.example.tasmag.task;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.example.tasmag.FieldSelection;
 
 import java.time.LocalDateTime;
 
 @Entity
+@JsonFilter(FieldSelection.FILTER_ID)
+@Table(indexes = {
+        @Index(name = "idx_task_status_due_date", columnList = "status, due_date"),
+        @Index(name = "idx_task_created_at", columnList = "created_at"),
+        @Index(name = "idx_task_assignee_status_due_date", columnList = "assignee_id, status, due_date"),
+        @Index(name = "idx_task_owner_id", columnList = "owner_id"),
+        @Index(name = "idx_task_status_created_at", columnList = "status, created_at")
+})
 public class Task {
 
+    /**
+     * Number of IDs allocated from {@code task_seq} at once, matching the increment of the sequence.
+     */
+    static final int ID_ALLOCATION_SIZE = 50;
+
     /**
      * Unique identifier for the task.
+     * Allocated from a pooled sequence, so that inserts can be batched by Hibernate.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_seq")
+    @SequenceGenerator(name = "task_seq", sequenceName = "task_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     /**
@@ -27,11 +46,13 @@ public class Task {
     /**
      * The date and the time when task was created.
      */
-    private  LocalDateTime createdAt;
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
 
     /**
      * The date by which the task should be completed (due date).
      */
+    @Column(name = "due_date")
     private LocalDateTime dueDate;
 
     /**
@@ -40,6 +61,28 @@ public class Task {
     @Enumerated(EnumType.STRING)
     private TaskStatus status;
 
+    /**
+     * ID of the user who owns the task, or null if nobody does.
+     * Kept as a plain ID rather than an association, so loading tasks never loads users.
+     */
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    /**
+     * ID of the user the task is assigned to, or null if it is unassigned.
+     */
+    @Column(name = "assignee_id")
+    private Long assigneeId;
+
+    /**
+     * Version of the task, incremented on every change and exposed as its entity tag.
+     * Clients can't set it, conditional updates pass it in the If-Match header instead.
+     */
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long version;
+
     public Task() {
         this.createdAt = LocalDateTime.now();
         this.status = TaskStatus.PENDING;
@@ -100,4 +143,28 @@ public class Task {
     public void setStatus(TaskStatus status) {
         this.status = status;
     }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public Long getAssigneeId() {
+        return assigneeId;
+    }
+
+    public void setAssigneeId(Long assigneeId) {
+        this.assigneeId = assigneeId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
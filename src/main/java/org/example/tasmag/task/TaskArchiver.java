@@ -0,0 +1,172 @@
+package org.example.tasmag.task;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import org.example.tasmag.DatabasePlatform;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Background job moving finished tasks from the {@code task} table to the {@code task_archive} table,
+ * so that the table and indexes read by every query on live tasks don't grow with the history.
+ * <p>
+ * Every {@code tasmag.tasks.archive.interval-ms} milliseconds, tasks with one of the
+ * {@link TaskStatus#ARCHIVABLE} statuses created more than {@code tasmag.tasks.archive.min-age} ago are moved
+ * in batches of at most {@code tasmag.tasks.archive.batch-size} tasks. Every batch is copied and deleted
+ * by two set-based statements in its own transaction. Like the {@link TaskOverdueSweeper}, the batch is selected
+ * with {@code FOR UPDATE SKIP LOCKED} on PostgreSQL, so several instances can archive at the same time.
+ * <p>
+ * The duration of every run is recorded by the {@value #ARCHIVE_TIMER} timer,
+ * and the number of archived tasks by the {@value #ARCHIVED_COUNTER} counter.
+ */
+@Component
+public class TaskArchiver {
+
+    public static final String ARCHIVE_TIMER = "tasmag.tasks.archive.duration";
+    public static final String ARCHIVED_COUNTER = "tasmag.tasks.archive.archived";
+
+    private static final String SELECT_BATCH_SQL = "SELECT id FROM task"
+            + " WHERE status IN (%s) AND created_at < ?"
+            + " ORDER BY id LIMIT ?"
+            + " FOR UPDATE SKIP LOCKED";
+
+    private static final String COPY_SQL = "INSERT INTO task_archive (" + TaskRowMapper.COLUMNS + ", archived_at)"
+            + " SELECT " + TaskRowMapper.COLUMNS + ", CAST(:archivedAt AS TIMESTAMP(6)) FROM task WHERE id IN (:ids)";
+
+    private static final String DELETE_SQL = "DELETE FROM task WHERE id IN (:ids)";
+
+    private final TaskRepository taskRepository;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache taskCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Timer archiveTimer;
+    private final Counter archivedCounter;
+    private final boolean enabled;
+    private final Duration minAge;
+    private final int batchSize;
+    private final String selectBatchSql;
+
+    public TaskArchiver(TaskRepository taskRepository,
+                        EntityManager entityManager,
+                        JdbcTemplate jdbcTemplate,
+                        DatabasePlatform databasePlatform,
+                        TransactionTemplate transactionTemplate,
+                        CacheManager cacheManager,
+                        ApplicationEventPublisher eventPublisher,
+                        MeterRegistry meterRegistry,
+                        @Value("${tasmag.tasks.archive.enabled:true}") boolean enabled,
+                        @Value("${tasmag.tasks.archive.min-age:90d}") Duration minAge,
+                        @Value("${tasmag.tasks.archive.batch-size:1000}") int batchSize) {
+        this.taskRepository = taskRepository;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.databasePlatform = databasePlatform;
+        this.transactionTemplate = transactionTemplate;
+        this.taskCache = cacheManager.getCache(TaskService.TASK_CACHE);
+        this.eventPublisher = eventPublisher;
+        this.archiveTimer = Timer.builder(ARCHIVE_TIMER)
+                .description("Time taken to archive all finished tasks old enough")
+                .register(meterRegistry);
+        this.archivedCounter = Counter.builder(ARCHIVED_COUNTER)
+                .description("Number of tasks moved to the archive")
+                .register(meterRegistry);
+        this.enabled = enabled;
+        this.minAge = minAge;
+        this.batchSize = batchSize;
+        this.selectBatchSql = SELECT_BATCH_SQL.formatted(TaskStatus.ARCHIVABLE.stream()
+                .map(status -> "'" + status.name() + "'")
+                .collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * Archives tasks every {@code tasmag.tasks.archive.interval-ms} milliseconds,
+     * unless {@code tasmag.tasks.archive.enabled} is false.
+     */
+    @Scheduled(initialDelayString = "${tasmag.tasks.archive.interval-ms:3600000}",
+            fixedDelayString = "${tasmag.tasks.archive.interval-ms:3600000}")
+    public void archiveOnSchedule() {
+        if (enabled) {
+            archive();
+        }
+    }
+
+    /**
+     * Moves all finished tasks created more than {@code tasmag.tasks.archive.min-age} ago to the archive.
+     *
+     * @return The number of archived tasks.
+     */
+    public int archive() {
+        return archive(LocalDateTime.now().minus(minAge));
+    }
+
+    /**
+     * Moves all finished tasks created before the given time to the archive, batch by batch.
+     * Batches committed before a failure stay committed; the remaining tasks are picked up by the next run.
+     *
+     * @param createdBefore Tasks created before this time are archived.
+     * @return The number of archived tasks.
+     */
+    public int archive(LocalDateTime createdBefore) {
+        return archiveTimer.record(() -> {
+            int archived = 0;
+            List<Long> ids;
+            do {
+                LocalDateTime archivedAt = LocalDateTime.now();
+                ids = transactionTemplate.execute(status -> archiveBatch(createdBefore, archivedAt));
+                for (Long id : ids) {
+                    taskCache.evict(id);
+                    eventPublisher.publishEvent(TaskEvent.of(TaskEvent.Type.ARCHIVED, id, null));
+                }
+                archivedCounter.increment(ids.size());
+                archived += ids.size();
+            } while (ids.size() == batchSize);
+            return archived;
+        });
+    }
+
+    /**
+     * Moves a single batch of tasks to the archive.
+     *
+     * @return The IDs of the archived tasks.
+     */
+    private List<Long> archiveBatch(LocalDateTime createdBefore, LocalDateTime archivedAt) {
+        // the statements bypass the persistence context, which must neither hide pending changes from them
+        // nor serve the moved tasks afterwards
+        entityManager.flush();
+        List<Long> ids = databasePlatform.isPostgreSql()
+                ? jdbcTemplate.queryForList(selectBatchSql, Long.class, Timestamp.valueOf(createdBefore), batchSize)
+                : taskRepository.findIdsCreatedBefore(TaskStatus.ARCHIVABLE, createdBefore, Limit.of(batchSize));
+        if (ids.isEmpty()) {
+            return ids;
+        }
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("archivedAt", Timestamp.valueOf(archivedAt));
+        namedParameterJdbcTemplate.update(COPY_SQL, parameters);
+        namedParameterJdbcTemplate.update(DELETE_SQL, parameters);
+        entityManager.clear();
+        return ids;
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.tasmag.task;
+
+/**
+ * Outcome of a single item of a batch task import.
+ *
+ * @param index Zero-based position of the item in the request body.
+ * @param id The ID assigned to the created task, or null if the item failed.
+ * @param status Whether the item was created or failed.
+ * @param error Reason of the failure, or null if the item was created.
+ */
+public record TaskBatchResult(int index, Long id, Status status, String error) {
+
+    /**
+     * Status of a single batch item.
+     */
+    public enum Status {
+        /**
+         * The task was stored.
+         */
+        CREATED,
+
+        /**
+         * The task was not stored.
+         */
+        FAILED,
+    }
+
+    static TaskBatchResult created(int index, Long id) {
+        return new TaskBatchResult(index, id, Status.CREATED, null);
+    }
+
+    static TaskBatchResult failed(int index, String error) {
+        return new TaskBatchResult(index, null, Status.FAILED, error);
+    }
+}
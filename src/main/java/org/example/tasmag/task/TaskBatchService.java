@@ -0,0 +1,115 @@
+package org.example.tasmag.task;
+
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Service class for importing many tasks at once.
+ * Tasks are read one by one from the request body and stored in chunks, each chunk in its own transaction.
+ * Within a chunk, Hibernate groups the inserts into JDBC batches of {@code hibernate.jdbc.batch_size} statements.
+ */
+@Service
+public class TaskBatchService {
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache taskCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    public TaskBatchService(EntityManager entityManager,
+                            TransactionTemplate transactionTemplate,
+                            CacheManager cacheManager,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${tasmag.tasks.batch.chunk-size:1000}") int chunkSize) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.taskCache = cacheManager.getCache(TaskService.TASK_CACHE);
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Stores all tasks read from the given iterator.
+     * An item that can't be mapped to a task fails on its own, the remaining items are still stored.
+     * If a chunk can't be committed, all items of that chunk fail. Chunks committed before stay stored.
+     *
+     * @param items The tasks read from the request body.
+     * @return The result of every item, ordered by the position of the item.
+     */
+    public List<TaskBatchResult> saveTasks(MappingIterator<Task> items) {
+        List<TaskBatchResult> results = new ArrayList<>();
+        List<Task> chunk = new ArrayList<>(chunkSize);
+        List<Integer> chunkIndexes = new ArrayList<>(chunkSize);
+
+        int index = 0;
+        while (true) {
+            try {
+                if (!items.hasNextValue()) {
+                    break;
+                }
+                chunk.add(items.nextValue());
+                chunkIndexes.add(index);
+            } catch (DatabindException e) {
+                // the iterator skips the rest of the invalid item, so reading can go on
+                results.add(TaskBatchResult.failed(index, e.getOriginalMessage()));
+            } catch (IOException e) {
+                results.add(TaskBatchResult.failed(index, "Malformed input: " + e.getMessage()));
+                break;
+            }
+            index++;
+
+            if (chunk.size() == chunkSize) {
+                saveChunk(chunk, chunkIndexes, results);
+            }
+        }
+        saveChunk(chunk, chunkIndexes, results);
+
+        results.sort(Comparator.comparingInt(TaskBatchResult::index));
+        return results;
+    }
+
+    private void saveChunk(List<Task> chunk, List<Integer> chunkIndexes, List<TaskBatchResult> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Task task : chunk) {
+                    task.setId(null);
+                    entityManager.persist(task);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            for (int i = 0; i < chunk.size(); i++) {
+                Task task = chunk.get(i);
+                // drops misses cached for IDs that were looked up before they were allocated
+                taskCache.evict(task.getId());
+                eventPublisher.publishEvent(TaskEvent.of(TaskEvent.Type.CREATED, task.getId(), task.getStatus()));
+                results.add(TaskBatchResult.created(chunkIndexes.get(i), task.getId()));
+            }
+        } catch (PersistenceException | DataAccessException | TransactionException e) {
+            for (Integer chunkIndex : chunkIndexes) {
+                results.add(TaskBatchResult.failed(chunkIndex, "Chunk rolled back: " + e.getMessage()));
+            }
+        }
+        chunk.clear();
+        chunkIndexes.clear();
+    }
+}
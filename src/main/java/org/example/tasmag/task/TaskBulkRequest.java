@@ -0,0 +1,13 @@
+package org.example.tasmag.task;
+
+import java.util.List;
+
+/**
+ * Selection of tasks changed or deleted at once, either by their IDs or by a filter.
+ *
+ * @param ids IDs of the selected tasks, or null if the tasks are selected by the filter.
+ * @param filter Criteria of the selected tasks, or null if the tasks are selected by their IDs.
+ * @param status New status of the selected tasks, only used by status transitions.
+ */
+public record TaskBulkRequest(List<Long> ids, TaskFilter filter, TaskStatus status) {
+}
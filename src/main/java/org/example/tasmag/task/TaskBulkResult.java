@@ -0,0 +1,12 @@
+package org.example.tasmag.task;
+
+/**
+ * Outcome of a bulk status transition or bulk delete of tasks.
+ *
+ * @param affected Number of tasks changed or deleted.
+ * @param skipped Number of selected IDs left alone because the task doesn't exist,
+ *                or its status can't be changed to the new one. Always 0 for tasks selected by a filter,
+ *                which only selects tasks that can be changed.
+ */
+public record TaskBulkResult(int affected, int skipped) {
+}
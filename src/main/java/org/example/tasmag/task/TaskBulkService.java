@@ -0,0 +1,197 @@
+package org.example.tasmag.task;
+
+import org.example.tasmag.DatabasePlatform;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Service class for changing the status of many tasks at once, or deleting them.
+ * <p>
+ * Tasks are selected by their IDs or by a {@link TaskFilter}, and processed in chunks of at most
+ * {@code tasmag.tasks.bulk.chunk-size} tasks. Every chunk is changed by a single set-based statement
+ * in its own transaction, so a request selecting many tasks neither loads them nor holds their locks for long.
+ * Chunks committed before a failure stay committed.
+ * <p>
+ * Status transitions are restricted to those allowed by {@link TaskStatus#canTransitionTo(TaskStatus)}:
+ * the statement only changes tasks with one of the {@link TaskStatus#sourcesOf(TaskStatus) source statuses},
+ * so a task changed concurrently to a final status is left alone.
+ * On PostgreSQL the changed tasks are returned by the statement itself. Other databases select them first,
+ * like the {@link TaskOverdueSweeper}.
+ * <p>
+ * Every changed task is evicted from the cache and published as a {@link TaskEvent}.
+ */
+@Service
+public class TaskBulkService {
+
+    private static final String UPDATE_STATUS_SQL = "UPDATE task SET status = :status, version = version + 1"
+            + " WHERE id IN (:ids) AND status IN (:sources)"
+            + " RETURNING id";
+
+    private static final String DELETE_SQL = "DELETE FROM task WHERE id IN (:ids) RETURNING id";
+
+    private final TaskRepository taskRepository;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache taskCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    public TaskBulkService(TaskRepository taskRepository,
+                           JdbcTemplate jdbcTemplate,
+                           DatabasePlatform databasePlatform,
+                           TransactionTemplate transactionTemplate,
+                           CacheManager cacheManager,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${tasmag.tasks.bulk.chunk-size:1000}") int chunkSize) {
+        this.taskRepository = taskRepository;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.databasePlatform = databasePlatform;
+        this.transactionTemplate = transactionTemplate;
+        this.taskCache = cacheManager.getCache(TaskService.TASK_CACHE);
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Changes the status of the tasks with the given IDs, skipping tasks whose status can't be changed to the new one.
+     *
+     * @param ids The IDs of the tasks to change, duplicates are ignored.
+     * @param status The new status.
+     * @return The number of changed tasks, and of IDs skipped because the task doesn't exist or can't be changed.
+     */
+    public TaskBulkResult updateStatus(List<Long> ids, TaskStatus status) {
+        Set<TaskStatus> sources = TaskStatus.sourcesOf(status);
+        return forEachChunk(ids, chunk -> updateStatusChunk(chunk, sources, status));
+    }
+
+    /**
+     * Changes the status of all tasks matching the filter whose status can be changed to the new one.
+     *
+     * @param filter The criteria the tasks must match.
+     * @param status The new status.
+     * @return The number of changed tasks.
+     */
+    public TaskBulkResult updateStatus(TaskFilter filter, TaskStatus status) {
+        Set<TaskStatus> sources = TaskStatus.sourcesOf(status);
+        Specification<Task> changeable = (root, query, cb) -> root.get("status").in(sources);
+        return forEachChunk(filter.toSpecification().and(changeable),
+                chunk -> updateStatusChunk(chunk, sources, status));
+    }
+
+    /**
+     * Deletes the tasks with the given IDs.
+     *
+     * @param ids The IDs of the tasks to delete, duplicates are ignored.
+     * @return The number of deleted tasks, and of IDs skipped because the task doesn't exist.
+     */
+    public TaskBulkResult deleteTasks(List<Long> ids) {
+        return forEachChunk(ids, this::deleteChunk);
+    }
+
+    /**
+     * Deletes all tasks matching the filter.
+     *
+     * @param filter The criteria the tasks must match.
+     * @return The number of deleted tasks.
+     */
+    public TaskBulkResult deleteTasks(TaskFilter filter) {
+        return forEachChunk(filter.toSpecification(), this::deleteChunk);
+    }
+
+    /**
+     * Applies the action to the given IDs, chunk by chunk.
+     *
+     * @param action The action changing a chunk of tasks and returning the IDs of the changed ones.
+     */
+    private TaskBulkResult forEachChunk(List<Long> ids, Function<List<Long>, List<Long>> action) {
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        int affected = 0;
+        for (int from = 0; from < distinctIds.size(); from += chunkSize) {
+            affected += action.apply(distinctIds.subList(from, Math.min(from + chunkSize, distinctIds.size()))).size();
+        }
+        return new TaskBulkResult(affected, distinctIds.size() - affected);
+    }
+
+    /**
+     * Applies the action to the tasks matching the specification, chunk by chunk in the order of their IDs.
+     * Every chunk is selected by reading the IDs only, after the last ID of the previous chunk.
+     *
+     * @param action The action changing a chunk of tasks and returning the IDs of the changed ones.
+     */
+    private TaskBulkResult forEachChunk(Specification<Task> specification, Function<List<Long>, List<Long>> action) {
+        int affected = 0;
+        long afterId = 0;
+        List<Long> chunk;
+        do {
+            chunk = taskRepository.findIds(specification, afterId, chunkSize);
+            if (!chunk.isEmpty()) {
+                affected += action.apply(chunk).size();
+                afterId = chunk.get(chunk.size() - 1);
+            }
+        } while (chunk.size() == chunkSize);
+        return new TaskBulkResult(affected, 0);
+    }
+
+    /**
+     * Changes the status of a single chunk of tasks in its own transaction.
+     *
+     * @return The IDs of the changed tasks.
+     */
+    private List<Long> updateStatusChunk(List<Long> ids, Set<TaskStatus> sources, TaskStatus status) {
+        List<Long> updated = transactionTemplate.execute(transaction -> {
+            if (databasePlatform.isPostgreSql()) {
+                MapSqlParameterSource parameters = new MapSqlParameterSource()
+                        .addValue("status", status.name())
+                        .addValue("ids", ids)
+                        .addValue("sources", sources.stream().map(TaskStatus::name).toList());
+                return namedParameterJdbcTemplate.queryForList(UPDATE_STATUS_SQL, parameters, Long.class);
+            }
+            List<Long> changeable = taskRepository.findIdsByIdInAndStatusIn(ids, sources);
+            if (!changeable.isEmpty()) {
+                taskRepository.updateStatus(changeable, sources, status);
+            }
+            return changeable;
+        });
+        for (Long id : updated) {
+            taskCache.evict(id);
+            eventPublisher.publishEvent(TaskEvent.of(TaskEvent.Type.STATUS_CHANGED, id, status));
+        }
+        return updated;
+    }
+
+    /**
+     * Deletes a single chunk of tasks in its own transaction.
+     *
+     * @return The IDs of the deleted tasks.
+     */
+    private List<Long> deleteChunk(List<Long> ids) {
+        List<Long> deleted = transactionTemplate.execute(transaction -> {
+            if (databasePlatform.isPostgreSql()) {
+                return namedParameterJdbcTemplate.queryForList(DELETE_SQL, new MapSqlParameterSource("ids", ids), Long.class);
+            }
+            List<Long> existing = taskRepository.findIdsByIdIn(ids);
+            if (!existing.isEmpty()) {
+                taskRepository.deleteTasksByIdIn(existing);
+            }
+            return existing;
+        });
+        for (Long id : deleted) {
+            taskCache.evict(id);
+            eventPublisher.publishEvent(TaskEvent.of(TaskEvent.Type.DELETED, id, null));
+        }
+        return deleted;
+    }
+}
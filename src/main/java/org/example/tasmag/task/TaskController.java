@@ -1,9 +1,38 @@
 package org.example.tasmag.task;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.tasmag.FieldSelection;
+import org.example.tasmag.IdempotencyFingerprintAdvice;
+import org.example.tasmag.IdempotencyStore;
+import org.example.tasmag.ImportResult;
+import org.example.tasmag.KeysetCursor;
+import org.example.tasmag.TransferCodec;
+import org.example.tasmag.TransferFormat;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.ZipException;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * TaskController manages task-related HTTP requests such as retrieving, creating, updating, and deleting tasks.
@@ -11,91 +40,566 @@ import org.springframework.web.bind.annotation.*;
  * <p>
  * Endpoints:
  * <ul>
- *     <li>GET /api/v1/tasks - retrieves a list of all tasks</li>
+ *     <li>GET /api/v1/tasks - retrieves a filtered page of tasks</li>
+ *     <li>GET /api/v1/tasks/stream - streams tasks as newline-delimited JSON</li>
+ *     <li>GET /api/v1/tasks/export - exports all tasks as CSV or newline-delimited JSON</li>
+ *     <li>GET /api/v1/tasks/search - searches tasks by name and description</li>
+ *     <li>GET /api/v1/tasks/stats - retrieves aggregated task statistics</li>
+ *     <li>GET /api/v1/tasks/events - streams task changes as server-sent events</li>
  *     <li>POST /api/v1/tasks - creates a new task</li>
+ *     <li>POST /api/v1/tasks/batch - creates many tasks at once</li>
+ *     <li>POST /api/v1/tasks/import - imports exported tasks with their IDs</li>
+ *     <li>POST /api/v1/tasks/bulk-status - changes the status of many tasks at once</li>
+ *     <li>POST /api/v1/tasks/bulk-delete - deletes many tasks at once</li>
  *     <li>GET /api/v1/tasks/{id} - retrieves a task by ID</li>
  *     <li>PUT /api/v1/tasks/{id} - updates a task by ID</li>
+ *     <li>PATCH /api/v1/tasks/{id} - partially updates a task by ID</li>
  *     <li>DELETE /api/v1/tasks/{id} - deletes a task by ID</li>
  * </ul>
+ * Single tasks carry their version as a strong entity tag. GET requests honour If-None-Match,
+ * PUT and PATCH requests honour If-Match.
+ * Tasks in responses are written with the properties listed by the {@value FieldSelection#PARAMETER} parameter
+ * only, or with all of them if it is omitted.
+ * Besides JSON, bodies may be encoded in binary CBOR, chosen by the Content-Type and Accept headers.
+ * Finished tasks moved to the archive are only listed and retrieved if {@code includeArchived=true} is passed.
+ * A task created with an {@value IdempotencyStore#HEADER} header is created only once per key,
+ * repeated requests with the same key return the task created by the first one.
  */
 @RestController
 @RequestMapping("/api/v1/tasks")
 public class TaskController {
 
+    /**
+     * Scope of the idempotency keys of created tasks.
+     */
+    static final String IDEMPOTENCY_SCOPE = "tasks";
+
     private final TaskService taskService;
+    private final TaskBatchService taskBatchService;
+    private final TaskBulkService taskBulkService;
+    private final TaskTransferService taskTransferService;
+    private final TaskStatsService taskStatsService;
+    private final TaskEventFeed taskEventFeed;
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+    private final TransferCodec transferCodec;
 
     /**
      * Constructor for TaskController.
      * @param taskService Service layer to handle Task-related business logic.
+     * @param taskBatchService Service layer to handle batch imports of tasks.
+     * @param taskBulkService Service layer to change and delete many tasks at once.
+     * @param taskTransferService Service layer to export and import all tasks.
+     * @param taskStatsService Service layer providing task statistics.
+     * @param taskEventFeed Feed of task changes.
+     * @param idempotencyStore Store of the idempotency keys of created tasks.
+     * @param objectMapper Mapper used to read and write streamed tasks.
+     * @param transferCodec Codec used to read imported tasks.
      */
-    public TaskController(TaskService taskService) {
+    public TaskController(TaskService taskService,
+                          TaskBatchService taskBatchService,
+                          TaskBulkService taskBulkService,
+                          TaskTransferService taskTransferService,
+                          TaskStatsService taskStatsService,
+                          TaskEventFeed taskEventFeed,
+                          IdempotencyStore idempotencyStore,
+                          ObjectMapper objectMapper,
+                          TransferCodec transferCodec) {
         this.taskService = taskService;
+        this.taskBatchService = taskBatchService;
+        this.taskBulkService = taskBulkService;
+        this.taskTransferService = taskTransferService;
+        this.taskStatsService = taskStatsService;
+        this.taskEventFeed = taskEventFeed;
+        this.idempotencyStore = idempotencyStore;
+        this.objectMapper = objectMapper;
+        this.transferCodec = transferCodec;
+    }
+
+    /**
+     * Retrieve a page of tasks ordered by ID, optionally filtered by status, due date and creation date.
+     * When the page is full, the response carries a {@code Link} header with {@code rel="next"}
+     * pointing to the following page with the same filter.
+     * @param filter Criteria the tasks must match, bound from the query parameters.
+     * @param after Opaque cursor returned by the previous page, omitted for the first page.
+     * @param limit Maximum number of tasks in the page, capped at {@value KeysetCursor#MAX_LIMIT}.
+     * @param includeArchived Whether archived tasks are listed too, false by default.
+     * @return ResponseEntity containing the page of tasks and HTTP status 200 OK,
+     *         or HTTP status 400 Bad Request if the cursor or a filter is malformed.
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<Task>> getAllTasks(
+            TaskFilter filter,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "" + KeysetCursor.DEFAULT_LIMIT) int limit,
+            @RequestParam(value = "includeArchived", defaultValue = "false") boolean includeArchived) {
+        int pageSize = KeysetCursor.clampLimit(limit);
+        List<Task> tasks = taskService.findTasks(filter, KeysetCursor.decode(after), pageSize, includeArchived);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (tasks.size() == pageSize) {
+            response.header(HttpHeaders.LINK, KeysetCursor.nextPageLink(tasks.get(pageSize - 1).getId()));
+        }
+        return response.body(tasks);
+    }
+
+    /**
+     * Stream all tasks ordered by ID as newline-delimited JSON, one task per line.
+     * Tasks are written to the response as they are read from the database, so the memory used
+     * doesn't depend on the number of tasks.
+     * @param after Opaque cursor of the task after which the stream starts, omitted for all tasks.
+     * @param fields Properties of the tasks to write, separated by commas, omitted for all properties.
+     * @return ResponseEntity with the streamed body and HTTP status 200 OK,
+     *         or HTTP status 400 Bad Request if the cursor is malformed.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllTasks(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = FieldSelection.PARAMETER, required = false) String fields) {
+        long afterId = KeysetCursor.decode(after);
+        // the body isn't written by a message converter, so the selection is applied to the writer here
+        FilterProvider filters = FieldSelection.filters(fields);
+        ObjectWriter writer = objectMapper.writerFor(Task.class)
+                .with(filters != null ? filters : FieldSelection.ALL_FIELDS)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                taskService.streamTasks(afterId, task -> {
+                    try {
+                        writer.writeValue(generator, task);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     /**
-     * Retrieve all tasks.
-     * @return ResponseEntity containing the list of all tasks and HTTP status 200 OK.
+     * Export all tasks ordered by ID as an attachment, with all their properties.
+     * Tasks are written to the response as they are read from the database, like streamed tasks.
+     * The response is compressed with gzip if the client accepts it.
+     * @param format The format of the export, {@code csv} with a header line by default, or {@code ndjson}.
+     * @return ResponseEntity with the streamed body and HTTP status 200 OK,
+     *         or HTTP status 400 Bad Request if the format is unknown.
      */
-    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Iterable<Task>> getAllTasks() {
-        return ResponseEntity.ok(taskService.findAllTasks());
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTasks(
+            @RequestParam(value = "format", defaultValue = "csv") String format) {
+        TransferFormat transferFormat;
+        try {
+            transferFormat = TransferFormat.fromName(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown format: " + format, e);
+        }
+        StreamingResponseBody body = outputStream -> taskTransferService.exportTasks(transferFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(transferFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("tasks." + transferFormat.getFileExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    /**
+     * Search tasks by their names and descriptions, the most relevant first.
+     * @param query The search query.
+     * @param page The zero-based index of the page to return.
+     * @param size Maximum number of tasks in the page, capped at {@value KeysetCursor#MAX_LIMIT}.
+     * @return ResponseEntity containing the page of matching tasks and HTTP status 200 OK,
+     *         or HTTP status 400 Bad Request if the query is blank or the page is negative.
+     */
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<Task>> searchTasks(
+            @RequestParam("q") String query,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        if (query.isBlank() || page < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(taskService.searchTasks(query.strip(), page, KeysetCursor.clampLimit(size)));
+    }
+
+    /**
+     * Retrieve aggregated task statistics: counts by status, the overdue count and a due date histogram.
+     * The counts by status include archived tasks.
+     * The statistics are served from a snapshot refreshed in the background,
+     * so the response time doesn't depend on the number of tasks.
+     * @return ResponseEntity containing the latest statistics and HTTP status 200 OK.
+     */
+    @GetMapping(value = "/stats", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<TaskStats> getTaskStats() {
+        return ResponseEntity.ok(taskStatsService.getStats());
+    }
+
+    /**
+     * Stream changes of tasks as server-sent events, named after the {@link TaskEvent.Type} of the change.
+     * A client reconnecting with the Last-Event-ID header receives the changes it missed,
+     * or a {@value TaskEventFeed#RESET_EVENT} event if they are no longer available and it has to reload the tasks.
+     * @param lastEventId ID of the last event received before reconnecting, omitted for a new subscription.
+     * @return ResponseEntity with the event stream and HTTP status 200 OK.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTaskEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return ResponseEntity.ok(taskEventFeed.subscribe(lastEventId));
     }
 
     /**
      * Create a new task.
+     * With an idempotency key, the task is created only if no earlier request used the same key;
+     * a repeated request returns the task created by the earlier one, in its current state, without creating another.
+     * A repeated request has to carry the same body as the earlier one.
+     * @param idempotencyKey Key chosen by the client to recognise retries of the request, omitted for none.
      * @param task The task to be created.
-     * @return ResponseEntity containing the created the task and HTTP status 201 Created.
+     * @param request The request, whose fingerprint is bound to the key.
+     * @return ResponseEntity containing the created the task, its entity tag and HTTP status 201 Created,
+     *         HTTP status 409 Conflict if a request with the same key is still in progress,
+     *         HTTP status 422 Unprocessable Entity if the key was used by another client or with another body,
+     *         HTTP status 404 Not Found if the task created with the same key was deleted since,
+     *         or HTTP status 400 Bad Request if the key is too long or the owner or assignee doesn't exist.
      */
-    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE,
-            produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Task> createTask(@RequestBody Task task) {
-        Task savedTask = taskService.saveTask(task);
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedTask);
+    @PostMapping(consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<Task> createTask(
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @RequestBody Task task,
+            HttpServletRequest request) {
+        // the ID is always allocated by the database, a client supplied one would make the task look detached
+        task.setId(null);
+        checkUsers(task.getOwnerId(), task.getAssigneeId());
+        if (idempotencyKey == null) {
+            return created(saveTask(task));
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyStore.MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed " + IdempotencyStore.HEADER);
+        }
+        IdempotencyStore.Reservation reservation = idempotencyStore.reserve(IDEMPOTENCY_SCOPE, idempotencyKey,
+                IdempotencyFingerprintAdvice.fingerprint(request));
+        if (reservation instanceof IdempotencyStore.Reservation.Completed completed) {
+            return taskService.findTaskById(completed.resourceId(), true)
+                    .map(savedTask -> ResponseEntity.status(HttpStatus.CREATED)
+                            .header(IdempotencyStore.REPLAYED_HEADER, "true")
+                            .eTag(eTag(savedTask.getVersion()))
+                            .body(savedTask))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        }
+        if (reservation instanceof IdempotencyStore.Reservation.Mismatch) {
+            return ResponseEntity.unprocessableEntity().build();
+        }
+        if (reservation instanceof IdempotencyStore.Reservation.Pending) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        Task savedTask;
+        try {
+            savedTask = saveTask(task);
+        } catch (RuntimeException e) {
+            idempotencyStore.release(IDEMPOTENCY_SCOPE, idempotencyKey);
+            throw e;
+        }
+        idempotencyStore.complete(IDEMPOTENCY_SCOPE, idempotencyKey, savedTask.getId());
+        return created(savedTask);
+    }
+
+    private static ResponseEntity<Task> created(Task savedTask) {
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(eTag(savedTask.getVersion())).body(savedTask);
+    }
+
+    private Task saveTask(Task task) {
+        try {
+            return taskService.saveTask(task);
+        } catch (DataIntegrityViolationException e) {
+            throw unknownUser(e);
+        }
+    }
+
+    /**
+     * Checks that the owner and assignee of a task exist before it is written.
+     * @throws ResponseStatusException with status 400 BAD REQUEST if one of them doesn't.
+     */
+    private void checkUsers(Long ownerId, Long assigneeId) {
+        if (!taskService.usersExist(ownerId, assigneeId)) {
+            throw unknownUser(null);
+        }
+    }
+
+    /**
+     * Rejects a task referring to a user that doesn't exist, either found by {@link #checkUsers}
+     * or by the foreign keys of the database if the user was deleted after the check.
+     */
+    private static ResponseStatusException unknownUser(DataIntegrityViolationException cause) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown owner or assignee", cause);
+    }
+
+    /**
+     * Create many tasks at once.
+     * The body is either a JSON array of tasks or newline-delimited JSON with one task per line.
+     * It is read incrementally and stored in chunks, so its size isn't limited by memory.
+     * @param body The request body with the tasks to be created.
+     * @return ResponseEntity containing the result of every task and HTTP status 200 OK,
+     *         or HTTP status 400 Bad Request if the body can't be read at all.
+     * @throws IOException if reading the request body fails.
+     */
+    @PostMapping(value = "/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<TaskBatchResult>> createTasks(InputStream body) throws IOException {
+        MappingIterator<Task> tasks;
+        try {
+            tasks = objectMapper.readerFor(Task.class).readValues(body);
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed input", e);
+        }
+        try (tasks) {
+            return ResponseEntity.ok(taskBatchService.saveTasks(tasks));
+        }
+    }
+
+    /**
+     * Import tasks exported by {@link #exportTasks(String)}, keeping their IDs.
+     * The body is read incrementally and stored in a single transaction, so either all tasks are imported or none.
+     * Bodies compressed with gzip are accepted with {@code Content-Encoding: gzip}.
+     * @param contentType The content type of the body, {@code text/csv} or {@code application/x-ndjson}.
+     * @param contentEncoding The encoding of the body, omitted if it isn't compressed.
+     * @param body The request body with the tasks to be imported.
+     * @return ResponseEntity containing the number of imported tasks and HTTP status 200 OK,
+     *         HTTP status 400 Bad Request if the body is malformed or a task has no ID,
+     *         or HTTP status 409 Conflict if a task has the ID of an existing one or refers to an unknown user.
+     * @throws IOException if reading the request body fails.
+     */
+    @PostMapping(value = "/import",
+            consumes = {TransferFormat.TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<ImportResult> importTasks(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            InputStream body) throws IOException {
+        TransferFormat format = TransferFormat.fromMediaType(contentType);
+        try (MappingIterator<Task> tasks = transferCodec.reader(format, Task.class,
+                TransferCodec.decode(body, contentEncoding))) {
+            return ResponseEntity.ok(taskTransferService.importTasks(tasks));
+        } catch (JsonProcessingException | ZipException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed input", e);
+        } catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Conflicting task", e);
+        }
+    }
+
+    /**
+     * Change the status of many tasks at once, selected either by their IDs or by a filter.
+     * Tasks are changed in chunks, each by a single statement in its own transaction.
+     * Only transitions allowed by {@link TaskStatus#canTransitionTo(TaskStatus)} are made,
+     * selected tasks with another status are skipped.
+     * @param request The IDs or the filter of the tasks, and their new status.
+     * @return ResponseEntity containing the numbers of changed and skipped tasks and HTTP status 200 OK,
+     *         or HTTP status 400 Bad Request if the selection or the status is missing,
+     *         or the filter selects a status that can't be changed to the new one.
+     */
+    @PostMapping(value = "/bulk-status",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<TaskBulkResult> updateTaskStatuses(@RequestBody TaskBulkRequest request) {
+        boolean byIds = checkSelection(request);
+        TaskStatus status = request.status();
+        if (status == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing status");
+        }
+        if (byIds) {
+            return ResponseEntity.ok(taskBulkService.updateStatus(request.ids(), status));
+        }
+        List<TaskStatus> selected = request.filter().status();
+        if (selected != null && !selected.stream().allMatch(source -> source.canTransitionTo(status))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Only tasks with one of the statuses " + TaskStatus.sourcesOf(status) + " can change to " + status);
+        }
+        return ResponseEntity.ok(taskBulkService.updateStatus(request.filter(), status));
+    }
+
+    /**
+     * Delete many tasks at once, selected either by their IDs or by a filter.
+     * Tasks are deleted in chunks, each by a single statement in its own transaction.
+     * @param request The IDs or the filter of the tasks.
+     * @return ResponseEntity containing the numbers of deleted and missing tasks and HTTP status 200 OK,
+     *         or HTTP status 400 Bad Request if the selection is missing.
+     */
+    @PostMapping(value = "/bulk-delete",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<TaskBulkResult> deleteTasks(@RequestBody TaskBulkRequest request) {
+        if (checkSelection(request)) {
+            return ResponseEntity.ok(taskBulkService.deleteTasks(request.ids()));
+        }
+        return ResponseEntity.ok(taskBulkService.deleteTasks(request.filter()));
+    }
+
+    /**
+     * Checks that a bulk request selects tasks either by IDs or by a filter with at least one criterion,
+     * so that a missing selection never affects all tasks.
+     * @return True if the tasks are selected by IDs, false if by a filter.
+     * @throws ResponseStatusException with status 400 BAD REQUEST if the selection is missing or ambiguous.
+     */
+    private static boolean checkSelection(TaskBulkRequest request) {
+        boolean byIds = request.ids() != null && !request.ids().isEmpty();
+        boolean byFilter = request.filter() != null && !request.filter().isEmpty();
+        if (byIds == byFilter) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Select tasks either by ids or by a filter");
+        }
+        if (byIds && request.ids().contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed ids");
+        }
+        return byIds;
     }
 
     /**
      * Retrieve a task by its ID.
      * @param id the ID of the task to retrieve.
-     * @return Response entity containing the task if found, or HTTP status 404 if not found.
+     * @param includeArchived whether the task is looked up in the archive too, false by default.
+     * @param request the current request, checked for an If-None-Match header.
+     * @return Response entity containing the task and its entity tag if found,
+     *         HTTP status 304 if the task matches the entity tag in If-None-Match, or HTTP status 404 if not found.
      */
     @GetMapping(value = "/{id}",
-            produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Task> getTaskById(@PathVariable Long id) {
-        return taskService.findTaskById(id)
-                .map(task -> ResponseEntity.ok().body(task))
-                .orElse(ResponseEntity.notFound().build());
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<Task> getTaskById(@PathVariable Long id,
+                                            @RequestParam(value = "includeArchived", defaultValue = "false") boolean includeArchived,
+                                            WebRequest request) {
+        Optional<Task> task = taskService.findTaskById(id, includeArchived);
+        if (task.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String eTag = eTag(task.get().getVersion());
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(task.get());
     }
 
     /**
      * Update an existing task.
+     * All fields of the task are replaced in a single statement, if its status may change to the new one.
      * @param id The ID of the task to update.
      * @param task The update Task details.
-     * @return ResponseEntity containing the update task if successful, or HTTP status 404 if the task doesn't exist.
+     * @param ifMatch Entity tag the task must match to be updated, or null to update it unconditionally.
+     * @return ResponseEntity containing the update task and, for conditional requests, its new entity tag if successful,
+     *         HTTP status 400 if the owner or assignee doesn't exist,
+     *         HTTP status 404 if the task doesn't exist,
+     *         HTTP status 409 if the status of the task can't change to the new one,
+     *         or HTTP status 412 if the task doesn't match the entity tag in If-Match.
      */
     @PutMapping(value = "/{id}",
-            produces = MediaType.APPLICATION_JSON_VALUE,
-            consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Task> updateTask(@PathVariable Long id, @RequestBody Task task) {
-        return taskService.findTaskById(id)
-                .map(existingTask -> {
-                    task.setId(id);
-                    Task updatedTask = taskService.saveTask(task);
-                    return ResponseEntity.status(HttpStatus.OK).body(updatedTask);
-                })
-                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE},
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<Task> updateTask(@PathVariable Long id, @RequestBody Task task,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = parseIfMatch(ifMatch);
+        checkUsers(task.getOwnerId(), task.getAssigneeId());
+        TaskUpdateResult result;
+        try {
+            result = taskService.updateTask(id, task, expectedVersion);
+        } catch (DataIntegrityViolationException e) {
+            throw unknownUser(e);
+        }
+        if (result != TaskUpdateResult.UPDATED) {
+            return ResponseEntity.status(toHttpStatus(result)).build();
+        }
+        task.setId(id);
+        if (expectedVersion == null) {
+            // the statement doesn't return the new version, so there is no entity tag to send
+            return ResponseEntity.status(HttpStatus.OK).body(task);
+        }
+        task.setVersion(expectedVersion + 1);
+        return ResponseEntity.status(HttpStatus.OK).eTag(eTag(task.getVersion())).body(task);
+    }
+
+    /**
+     * Partially update an existing task.
+     * Only the fields present in the request body are changed, in a single statement.
+     * The task is unassigned with {@code "unassign": true}, since a null assignee is taken as no change.
+     * A new status has to be one the status of the task may change to.
+     * @param id The ID of the task to update.
+     * @param patch The fields to change.
+     * @param ifMatch Entity tag the task must match to be updated, or null to update it unconditionally.
+     * @return ResponseEntity with HTTP status 204 No Content if successful,
+     *         400 Bad Request if the owner or assignee doesn't exist or the task is both assigned and unassigned,
+     *         404 Not Found if the task doesn't exist,
+     *         409 Conflict if the status of the task can't change to the new one,
+     *         or 412 Precondition Failed if the task doesn't match the entity tag in If-Match.
+     */
+    @PatchMapping(value = "/{id}",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<Void> patchTask(@PathVariable Long id, @RequestBody TaskPatch patch,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = parseIfMatch(ifMatch);
+        if (patch.unassign() && patch.assigneeId() != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either assign or unassign the task");
+        }
+        checkUsers(patch.ownerId(), patch.assigneeId());
+        TaskUpdateResult result;
+        try {
+            result = taskService.patchTask(id, patch, expectedVersion);
+        } catch (DataIntegrityViolationException e) {
+            throw unknownUser(e);
+        }
+        if (result != TaskUpdateResult.UPDATED) {
+            return ResponseEntity.status(toHttpStatus(result)).build();
+        }
+        ResponseEntity.HeadersBuilder<?> response = ResponseEntity.status(HttpStatus.NO_CONTENT);
+        if (expectedVersion != null) {
+            response.eTag(eTag(expectedVersion + 1));
+        }
+        return response.build();
     }
 
     /**
      * Delete a task byt its ID.
+     * The task is deleted in a single statement, its absence is detected from the number of deleted rows.
      * @param id The ID of the task to delete.
      * @return ResponseEntity with HTTP status 204 No Content if successful or 404 Not Found if the task doesn't exist.
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteTask(@PathVariable Long id) {
-        if (taskService.existsById(id)) {
-            taskService.deleteTask(id);
+        if (taskService.deleteTask(id)) {
             return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
         }
         return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
+
+    private static String eTag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Parses the If-Match header of a conditional update.
+     * Only a single strong entity tag or {@code *} is supported. Weak tags never match in If-Match.
+     * @param ifMatch The value of the If-Match header, may be null.
+     * @return The expected version, or null if any version matches.
+     * @throws ResponseStatusException with status 412 PRECONDITION FAILED if the header can't match any version.
+     */
+    private static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.strip().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.strip();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // not a tag issued by this API, falls through to the failed precondition below
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Unsupported entity tag: " + ifMatch);
+    }
+
+    private static HttpStatus toHttpStatus(TaskUpdateResult result) {
+        return switch (result) {
+            case UPDATED -> HttpStatus.OK;
+            case NOT_FOUND -> HttpStatus.NOT_FOUND;
+            case VERSION_MISMATCH -> HttpStatus.PRECONDITION_FAILED;
+            case INVALID_TRANSITION -> HttpStatus.CONFLICT;
+        };
+    }
 }
@@ -0,0 +1,32 @@
+package org.example.tasmag.task;
+
+/**
+ * Projection of the numbers of open tasks by the time left until their due date.
+ */
+public interface TaskDueDateCounts {
+
+    /**
+     * @return The number of tasks whose due date has passed.
+     */
+    long getOverdue();
+
+    /**
+     * @return The number of tasks due within the next day.
+     */
+    long getDueWithinDay();
+
+    /**
+     * @return The number of tasks due within the next week, but not within the next day.
+     */
+    long getDueWithinWeek();
+
+    /**
+     * @return The number of tasks due later than in a week.
+     */
+    long getDueLater();
+
+    /**
+     * @return The number of tasks without a due date.
+     */
+    long getNoDueDate();
+}
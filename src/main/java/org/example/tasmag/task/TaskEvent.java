@@ -0,0 +1,57 @@
+package org.example.tasmag.task;
+
+import java.time.Instant;
+
+/**
+ * Change of a task, published by {@link TaskService} and delivered to clients by the {@link TaskEventFeed}.
+ * Events carry only what changed, clients retrieve the task itself if they need more.
+ *
+ * @param id Position of the event in the feed, assigned by the feed and used as the server-sent event ID.
+ * @param type Kind of the change.
+ * @param taskId ID of the changed task.
+ * @param status The status of the task after the change, or null if it isn't known without loading the task.
+ * @param occurredAt Time of the change.
+ */
+public record TaskEvent(long id, Type type, Long taskId, TaskStatus status, Instant occurredAt) {
+
+    /**
+     * Kind of change of a task.
+     */
+    public enum Type {
+        /**
+         * The task was created.
+         */
+        CREATED,
+
+        /**
+         * Fields of the task other than its status, or possibly its status too, were changed.
+         */
+        UPDATED,
+
+        /**
+         * The status of the task was changed.
+         */
+        STATUS_CHANGED,
+
+        /**
+         * The task was deleted.
+         */
+        DELETED,
+
+        /**
+         * The task was moved to the archive. It is still retrieved when archived tasks are asked for.
+         */
+        ARCHIVED,
+    }
+
+    static TaskEvent of(Type type, Long taskId, TaskStatus status) {
+        return new TaskEvent(0, type, taskId, status, Instant.now());
+    }
+
+    /**
+     * Returns a copy of this event at the given position of the feed.
+     */
+    TaskEvent withId(long id) {
+        return new TaskEvent(id, type, taskId, status, occurredAt);
+    }
+}
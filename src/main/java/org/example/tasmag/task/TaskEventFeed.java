@@ -0,0 +1,211 @@
+package org.example.tasmag.task;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Feed of task changes delivered to clients as server-sent events.
+ * <p>
+ * Events are kept in a bounded in-memory ring buffer and numbered in the order they were committed.
+ * A subscriber holds no queue and no thread of its own, only the ID of the last event it was sent,
+ * so idle subscribers cost little more than their open connection.
+ * When events arrive, every subscriber is drained on a virtual thread, reading the events it hasn't been sent
+ * from the buffer. A slow subscriber only delays itself; one that falls behind the buffer, or resumes from an ID
+ * the buffer no longer holds, is sent a {@code RESET} event telling it to reload the tasks, and continues
+ * with the newest events.
+ */
+@Component
+public class TaskEventFeed implements DisposableBean {
+
+    /**
+     * Name of the event telling a subscriber that it missed events and has to reload the tasks.
+     */
+    public static final String RESET_EVENT = "RESET";
+
+    private final TaskEvent[] buffer;
+    private long lastId;
+
+    private final long timeout;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService dispatcher =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("task-events-", 0).factory());
+
+    /**
+     * Creates an empty feed.
+     *
+     * @param bufferSize Number of the most recent events kept for subscribers resuming or falling behind.
+     * @param timeout Time in milliseconds after which a subscription is closed; clients reconnect and resume.
+     */
+    public TaskEventFeed(@Value("${tasmag.tasks.events.buffer-size:10000}") int bufferSize,
+                         @Value("${tasmag.tasks.events.timeout-ms:1800000}") long timeout) {
+        this.buffer = new TaskEvent[bufferSize];
+        this.timeout = timeout;
+    }
+
+    /**
+     * Subscribes to the events committed from now on, or after the given event.
+     *
+     * @param lastEventId The ID of the last event the client received before reconnecting, or null for a new client.
+     * @return The emitter sending the events to the client.
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout);
+        Subscriber subscriber = new Subscriber(emitter, lastEventId != null ? lastEventId : lastId());
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        if (lastEventId != null) {
+            schedule(subscriber);
+        }
+        return emitter;
+    }
+
+    /**
+     * Appends a task change to the feed once the transaction making it commits,
+     * or right away if it was made outside of a transaction. Changes rolled back are never published.
+     *
+     * @param event The change of a task.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskEvent(TaskEvent event) {
+        append(event);
+        subscribers.forEach(this::schedule);
+    }
+
+    /**
+     * Sends a comment to idle subscribers, so that proxies keep their connections open
+     * and connections of clients gone away are detected and released.
+     */
+    @Scheduled(fixedDelayString = "${tasmag.tasks.events.heartbeat-interval-ms:15000}")
+    public void sendHeartbeats() {
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.scheduled.get()) {
+                dispatcher.execute(() -> send(subscriber, SseEmitter.event().comment("heartbeat")));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of open subscriptions.
+     *
+     * @return The number of subscribers.
+     */
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void destroy() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        dispatcher.shutdownNow();
+    }
+
+    private synchronized long lastId() {
+        return lastId;
+    }
+
+    private synchronized void append(TaskEvent event) {
+        lastId++;
+        buffer[(int) (lastId % buffer.length)] = event.withId(lastId);
+    }
+
+    /**
+     * Reads the events following the given one.
+     *
+     * @param afterId The ID of the last event sent to a subscriber.
+     * @return The following events, possibly none,
+     *         or null if some of them are no longer in the buffer or the ID is unknown.
+     */
+    private synchronized List<TaskEvent> eventsAfter(long afterId) {
+        if (afterId > lastId || afterId < lastId - buffer.length) {
+            return null;
+        }
+        List<TaskEvent> events = new ArrayList<>((int) (lastId - afterId));
+        for (long id = afterId + 1; id <= lastId; id++) {
+            events.add(buffer[(int) (id % buffer.length)]);
+        }
+        return events;
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(subscriber));
+        }
+    }
+
+    /**
+     * Sends a subscriber all events it hasn't been sent yet.
+     * At most one drain per subscriber runs at a time; events appended meanwhile are picked up before it ends.
+     */
+    private void drain(Subscriber subscriber) {
+        boolean open = true;
+        try {
+            List<TaskEvent> events;
+            while (open && (events = eventsAfter(subscriber.lastSentId)) != null && !events.isEmpty()) {
+                for (TaskEvent event : events) {
+                    open = send(subscriber, SseEmitter.event()
+                            .id(Long.toString(event.id()))
+                            .name(event.type().name())
+                            .data(event, MediaType.APPLICATION_JSON));
+                    if (!open) {
+                        break;
+                    }
+                    subscriber.lastSentId = event.id();
+                }
+            }
+            if (open && eventsAfter(subscriber.lastSentId) == null) {
+                long resetId = lastId();
+                open = send(subscriber, SseEmitter.event().id(Long.toString(resetId)).name(RESET_EVENT).data(""));
+                subscriber.lastSentId = resetId;
+            }
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        // catches events appended after the last read, which didn't schedule a drain while this one was running
+        if (open && lastId() != subscriber.lastSentId) {
+            schedule(subscriber);
+        }
+    }
+
+    private boolean send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        try {
+            subscriber.emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // the client is gone or the emitter was completed
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    /**
+     * State of a single subscription.
+     */
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile long lastSentId;
+
+        private Subscriber(SseEmitter emitter, long lastSentId) {
+            this.emitter = emitter;
+            this.lastSentId = lastSentId;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.tasmag.task;
+
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria for listing tasks, bound from the query parameters of the task listing.
+ * All criteria are optional and combined with AND. Date ranges are exclusive.
+ *
+ * @param status Statuses of the tasks to list, any status if null or empty.
+ * @param dueBefore List only tasks due before this date.
+ * @param dueAfter List only tasks due after this date.
+ * @param createdBefore List only tasks created before this date.
+ * @param createdAfter List only tasks created after this date.
+ * @param ownerId List only tasks owned by the user with this ID.
+ * @param assigneeId List only tasks assigned to the user with this ID.
+ */
+public record TaskFilter(
+        List<TaskStatus> status,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dueBefore,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dueAfter,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdBefore,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdAfter,
+        Long ownerId,
+        Long assigneeId) {
+
+    /**
+     * Filter matching all tasks.
+     */
+    public static final TaskFilter NONE = new TaskFilter(null, null, null, null, null, null, null);
+
+    /**
+     * Returns a copy of this filter listing only tasks owned by the given user.
+     *
+     * @param userId The ID of the owner.
+     * @return The restricted filter.
+     */
+    public TaskFilter withOwner(Long userId) {
+        return new TaskFilter(status, dueBefore, dueAfter, createdBefore, createdAfter, userId, assigneeId);
+    }
+
+    /**
+     * Returns a copy of this filter listing only tasks assigned to the given user.
+     *
+     * @param userId The ID of the assignee.
+     * @return The restricted filter.
+     */
+    public TaskFilter withAssignee(Long userId) {
+        return new TaskFilter(status, dueBefore, dueAfter, createdBefore, createdAfter, ownerId, userId);
+    }
+
+    /**
+     * Checks if the filter has no criteria at all, matching every task.
+     *
+     * @return True if no criterion is set, false otherwise.
+     */
+    public boolean isEmpty() {
+        return (status == null || status.isEmpty()) && dueBefore == null && dueAfter == null
+                && createdBefore == null && createdAfter == null && ownerId == null && assigneeId == null;
+    }
+
+    /**
+     * Converts the filter into a specification of matching tasks.
+     * Status and due date are served by the {@code (status, due_date)} index,
+     * creation date by the {@code created_at} index, and the assignee, together with status and due date,
+     * by the {@code (assignee_id, status, due_date)} index.
+     *
+     * @return The specification matching the tasks selected by this filter.
+     */
+    public Specification<Task> toSpecification() {
+        return matching();
+    }
+
+    /**
+     * Converts the filter into a specification of matching archived tasks.
+     *
+     * @return The specification matching the archived tasks selected by this filter.
+     */
+    public Specification<ArchivedTask> toArchivedSpecification() {
+        return matching();
+    }
+
+    /**
+     * Builds the predicates on the attributes shared by {@link Task} and {@link ArchivedTask}.
+     */
+    private <T> Specification<T> matching() {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (status != null && !status.isEmpty()) {
+                predicates.add(root.get("status").in(status));
+            }
+            if (dueBefore != null) {
+                predicates.add(cb.lessThan(root.<LocalDateTime>get("dueDate"), dueBefore));
+            }
+            if (dueAfter != null) {
+                predicates.add(cb.greaterThan(root.<LocalDateTime>get("dueDate"), dueAfter));
+            }
+            if (createdBefore != null) {
+                predicates.add(cb.lessThan(root.<LocalDateTime>get("createdAt"), createdBefore));
+            }
+            if (createdAfter != null) {
+                predicates.add(cb.greaterThan(root.<LocalDateTime>get("createdAt"), createdAfter));
+            }
+            if (ownerId != null) {
+                predicates.add(cb.equal(root.get("ownerId"), ownerId));
+            }
+            if (assigneeId != null) {
+                predicates.add(cb.equal(root.get("assigneeId"), assigneeId));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.tasmag.task;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.tasmag.DatabasePlatform;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Background job moving open tasks past their due date to {@link TaskStatus#FAILED}.
+ * <p>
+ * Every {@code tasmag.tasks.sweeper.interval-ms} milliseconds the overdue tasks are transitioned in batches
+ * of at most {@code tasmag.tasks.sweeper.batch-size} tasks, each batch a single set-based statement
+ * in its own transaction, so locks are held briefly and a sweep of many tasks doesn't build one huge transaction.
+ * On PostgreSQL the batch is selected with {@code FOR UPDATE SKIP LOCKED}: instances sweeping at the same time
+ * skip the rows locked by each other instead of waiting for them, so every task is transitioned exactly once.
+ * Other databases select the batch first and update it in a second statement that re-checks the status,
+ * which never transitions a task twice but lets concurrent instances wait for each other.
+ * <p>
+ * The duration of every sweep is recorded by the {@value #SWEEP_TIMER} timer,
+ * and the number of transitioned tasks by the {@value #TRANSITIONED_COUNTER} counter.
+ */
+@Component
+public class TaskOverdueSweeper {
+
+    public static final String SWEEP_TIMER = "tasmag.tasks.sweeper.duration";
+    public static final String TRANSITIONED_COUNTER = "tasmag.tasks.sweeper.transitioned";
+
+    private static final String SWEEP_BATCH_SQL = "UPDATE task SET status = ?, version = version + 1"
+            + " WHERE id IN (SELECT id FROM task"
+            + " WHERE status IN (%s) AND due_date < ?"
+            + " ORDER BY due_date, id LIMIT ?"
+            + " FOR UPDATE SKIP LOCKED)"
+            + " RETURNING id";
+
+    private final TaskRepository taskRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache taskCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Timer sweepTimer;
+    private final Counter transitionedCounter;
+    private final boolean enabled;
+    private final int batchSize;
+    private final String sweepBatchSql;
+
+    public TaskOverdueSweeper(TaskRepository taskRepository,
+                              JdbcTemplate jdbcTemplate,
+                              DatabasePlatform databasePlatform,
+                              TransactionTemplate transactionTemplate,
+                              CacheManager cacheManager,
+                              ApplicationEventPublisher eventPublisher,
+                              MeterRegistry meterRegistry,
+                              @Value("${tasmag.tasks.sweeper.enabled:true}") boolean enabled,
+                              @Value("${tasmag.tasks.sweeper.batch-size:500}") int batchSize) {
+        this.taskRepository = taskRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.databasePlatform = databasePlatform;
+        this.transactionTemplate = transactionTemplate;
+        this.taskCache = cacheManager.getCache(TaskService.TASK_CACHE);
+        this.eventPublisher = eventPublisher;
+        this.sweepTimer = Timer.builder(SWEEP_TIMER)
+                .description("Time taken to transition all overdue tasks")
+                .register(meterRegistry);
+        this.transitionedCounter = Counter.builder(TRANSITIONED_COUNTER)
+                .description("Number of overdue tasks transitioned to FAILED")
+                .register(meterRegistry);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.sweepBatchSql = SWEEP_BATCH_SQL.formatted(TaskStatus.OPEN.stream()
+                .map(status -> "'" + status.name() + "'")
+                .collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * Runs a sweep every {@code tasmag.tasks.sweeper.interval-ms} milliseconds,
+     * unless {@code tasmag.tasks.sweeper.enabled} is false.
+     */
+    @Scheduled(initialDelayString = "${tasmag.tasks.sweeper.interval-ms:60000}",
+            fixedDelayString = "${tasmag.tasks.sweeper.interval-ms:60000}")
+    public void sweepOnSchedule() {
+        if (enabled) {
+            sweep();
+        }
+    }
+
+    /**
+     * Transitions all open tasks that are past their due date to {@link TaskStatus#FAILED}, batch by batch.
+     * Batches committed before a failure stay committed; the remaining tasks are picked up by the next sweep.
+     *
+     * @return The number of transitioned tasks.
+     */
+    public int sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        return sweepTimer.record(() -> {
+            int transitioned = 0;
+            List<Long> ids;
+            do {
+                ids = transactionTemplate.execute(status -> sweepBatch(now));
+                for (Long id : ids) {
+                    taskCache.evict(id);
+                    eventPublisher.publishEvent(TaskEvent.of(TaskEvent.Type.STATUS_CHANGED, id, TaskStatus.FAILED));
+                }
+                transitionedCounter.increment(ids.size());
+                transitioned += ids.size();
+            } while (ids.size() == batchSize);
+            return transitioned;
+        });
+    }
+
+    /**
+     * Transitions a single batch of overdue tasks.
+     *
+     * @return The IDs of the transitioned tasks.
+     */
+    private List<Long> sweepBatch(LocalDateTime now) {
+        if (databasePlatform.isPostgreSql()) {
+            return jdbcTemplate.queryForList(sweepBatchSql, Long.class,
+                    TaskStatus.FAILED.name(), Timestamp.valueOf(now), batchSize);
+        }
+        List<Long> ids = taskRepository.findIdsDueBefore(TaskStatus.OPEN, now, Limit.of(batchSize));
+        if (ids.isEmpty()) {
+            return ids;
+        }
+        int updated = taskRepository.updateStatus(ids, TaskStatus.OPEN, TaskStatus.FAILED);
+        if (updated < ids.size()) {
+            // some tasks were finished or deleted since they were selected, only the failed ones were transitioned
+            return taskRepository.findIdsByIdInAndStatusIn(ids, List.of(TaskStatus.FAILED));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.tasmag.task;
+
+import java.time.LocalDateTime;
+
+/**
+ * Partial update of a task.
+ * Only the fields present in the request are changed, fields left out or set to null keep their values.
+ * Since null can't clear the assignee, a task is unassigned with {@code unassign} instead.
+ *
+ * @param name New name of the task.
+ * @param description New description of the task.
+ * @param dueDate New due date of the task.
+ * @param status New status of the task.
+ * @param ownerId ID of the new owner of the task.
+ * @param assigneeId ID of the user the task is newly assigned to.
+ * @param unassign Whether the task is no longer assigned to anyone, false if left out.
+ */
+public record TaskPatch(String name, String description, LocalDateTime dueDate, TaskStatus status,
+                        Long ownerId, Long assigneeId, boolean unassign) {
+}
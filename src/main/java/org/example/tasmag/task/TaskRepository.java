@@ -1,25 +1,221 @@
 package org.example.tasmag.task;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for managing Task entities.
- * Extends CrudRepository to provide basic CRUD operations.
- * Includes custom query for full-text search on task names.
+ * Extends CrudRepository to provide basic CRUD operations
+ * and JpaSpecificationExecutor to list tasks matching a {@link TaskFilter}.
+ * Includes custom queries for full-text search on task names and descriptions,
+ * and single-statement updates and deletes.
  */
-public interface TaskRepository extends CrudRepository<Task, Long> {
+public interface TaskRepository extends CrudRepository<Task, Long>, JpaSpecificationExecutor<Task>, TaskRepositoryCustom {
 
     /**
-     * Find all tasks whose names contain the specific search term.
-     * This method performs a case-insensitive search.
+     * Find a page of tasks whose names or descriptions contain the specific search term.
+     * This method performs a case-insensitive search, listing tasks matching by name first.
+     * It can't use an index and scans the whole table, so it serves only as a portable fallback
+     * of {@link #searchRanked(String, int, long)}.
      *
-     * @param searchTerm The term to search for within task names.
+     * @param searchTerm The term to search for within task names and descriptions, with the wildcards {@code %}
+     *                   and {@code _} and the escape character {@code \} escaped by a backslash.
+     * @param pageable The page of matching tasks to return.
      * @return A list of task matching the search term.
      */
-    @Query("SELECT j FROM Task j WHERE LOWER(j.name) LIKE LOWER(CONCAT('%', ?1, '%'))")
-    List<Task> findAllByFullTextSearch(String searchTerm);
-}
+    @Query("SELECT j FROM Task j"
+            + " WHERE LOWER(j.name) LIKE LOWER(CONCAT('%', :term, '%')) ESCAPE '\\'"
+            + " OR LOWER(j.description) LIKE LOWER(CONCAT('%', :term, '%')) ESCAPE '\\'"
+            + " ORDER BY CASE WHEN LOWER(j.name) LIKE LOWER(CONCAT('%', :term, '%')) ESCAPE '\\' THEN 0 ELSE 1 END,"
+            + " j.id")
+    List<Task> findAllByFullTextSearch(@Param("term") String searchTerm, Pageable pageable);
+
+    /**
+     * Find a page of tasks matching the search query, ordered by relevance.
+     * The query is evaluated against the {@code search_vector} column and its GIN index,
+     * so it requires PostgreSQL.
+     *
+     * @param searchQuery The search query in web search syntax, e.g. {@code report -draft}.
+     * @param limit The maximum number of tasks to return.
+     * @param offset The number of matching tasks to skip.
+     * @return A list of tasks matching the search query, the most relevant first.
+     */
+    @Query(value = "SELECT t.* FROM task t, websearch_to_tsquery('simple', :query) q"
+            + " WHERE t.search_vector @@ q"
+            + " ORDER BY ts_rank(t.search_vector, q) DESC, t.id"
+            + " LIMIT :limit OFFSET :offset",
+            nativeQuery = true)
+    List<Task> searchRanked(@Param("query") String searchQuery,
+                            @Param("limit") int limit,
+                            @Param("offset") long offset);
+
+    /**
+     * Finds the status of a task without loading it, to tell why an update didn't change it.
+     *
+     * @param id The ID of the task.
+     * @return The status of the task, or empty if it doesn't exist.
+     */
+    @Query("SELECT j.status FROM Task j WHERE j.id = :id")
+    Optional<TaskStatus> findStatusById(@Param("id") Long id);
+
+    /**
+     * Counts how many of the given users exist, to check the owner and assignee of a task before it is written.
+     * The users are named by their entity only, so that tasks don't depend on the user classes.
+     *
+     * @param userIds The IDs of the users to look for.
+     * @return The number of existing users among them.
+     */
+    @Query("SELECT COUNT(u) FROM User u WHERE u.id IN :userIds")
+    long countUsersByIdIn(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Deletes the task with the given ID in a single statement, without loading it first.
+     *
+     * @param id The ID of the task to delete.
+     * @return The number of deleted tasks, 0 if the task doesn't exist.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Task t WHERE t.id = :id")
+    int deleteTaskById(@Param("id") Long id);
+
+    /**
+     * Moves all tasks owned by one user to another user in a single statement.
+     *
+     * @param fromUserId The ID of the current owner.
+     * @param toUserId The ID of the new owner, or null to leave the tasks without an owner.
+     * @return The number of updated tasks.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.ownerId = :toUserId, t.version = t.version + 1 WHERE t.ownerId = :fromUserId")
+    int reassignOwner(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId);
+
+    /**
+     * Moves all tasks assigned to one user to another user in a single statement.
+     *
+     * @param fromUserId The ID of the current assignee.
+     * @param toUserId The ID of the new assignee, or null to leave the tasks unassigned.
+     * @return The number of updated tasks.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.assigneeId = :toUserId, t.version = t.version + 1 WHERE t.assigneeId = :fromUserId")
+    int reassignAssignee(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId);
+
+    /**
+     * Finds the IDs of tasks with the given statuses that were due before the given time, the longest overdue first.
+     * The range condition on the due date is served by the index on status and due date.
+     *
+     * @param statuses The statuses of the tasks to find.
+     * @param now The current time, tasks due before it are overdue.
+     * @param limit The maximum number of IDs to return.
+     * @return The IDs of the overdue tasks.
+     */
+    @Query("SELECT t.id FROM Task t WHERE t.status IN :statuses AND t.dueDate < :now ORDER BY t.dueDate, t.id")
+    List<Long> findIdsDueBefore(@Param("statuses") Collection<TaskStatus> statuses,
+                                @Param("now") LocalDateTime now,
+                                Limit limit);
 
+    /**
+     * Finds the IDs of tasks with the given statuses that were created before the given time, ordered by ID.
+     * The range condition on the creation date is served by the index on status and creation date.
+     *
+     * @param statuses The statuses of the tasks to find.
+     * @param createdBefore Tasks created before this time are found.
+     * @param limit The maximum number of IDs to return.
+     * @return The IDs of the matching tasks.
+     */
+    @Query("SELECT t.id FROM Task t WHERE t.status IN :statuses AND t.createdAt < :createdBefore ORDER BY t.id")
+    List<Long> findIdsCreatedBefore(@Param("statuses") Collection<TaskStatus> statuses,
+                                    @Param("createdBefore") LocalDateTime createdBefore,
+                                    Limit limit);
+
+    /**
+     * Changes the status of the given tasks in a single statement,
+     * skipping tasks whose status was changed to another one than the expected in the meantime.
+     *
+     * @param ids The IDs of the tasks to update.
+     * @param expected The statuses the tasks are expected to have.
+     * @param status The new status.
+     * @return The number of updated tasks.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.status = :status, t.version = t.version + 1"
+            + " WHERE t.id IN :ids AND t.status IN :expected")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+                     @Param("expected") Collection<TaskStatus> expected,
+                     @Param("status") TaskStatus status);
+
+    /**
+     * Finds which of the given tasks exist and have one of the given statuses.
+     *
+     * @param ids The IDs of the tasks to look for.
+     * @param statuses The statuses the tasks must have.
+     * @return The IDs of the matching tasks.
+     */
+    @Query("SELECT t.id FROM Task t WHERE t.id IN :ids AND t.status IN :statuses")
+    List<Long> findIdsByIdInAndStatusIn(@Param("ids") Collection<Long> ids,
+                                        @Param("statuses") Collection<TaskStatus> statuses);
+
+    /**
+     * Finds which of the given tasks exist.
+     *
+     * @param ids The IDs of the tasks to look for.
+     * @return The IDs of the existing tasks.
+     */
+    @Query("SELECT t.id FROM Task t WHERE t.id IN :ids")
+    List<Long> findIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Deletes the given tasks in a single statement, without loading them first.
+     *
+     * @param ids The IDs of the tasks to delete.
+     * @return The number of deleted tasks.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Task t WHERE t.id IN :ids")
+    int deleteTasksByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Counts tasks for every status that at least one task has.
+     *
+     * @return The number of tasks per status.
+     */
+    @Query("SELECT t.status AS status, COUNT(t) AS count FROM Task t GROUP BY t.status")
+    List<TaskStatusCount> countByStatus();
+
+    /**
+     * Counts tasks with the given statuses by the time left until their due date, in a single pass.
+     *
+     * @param statuses The statuses of the counted tasks.
+     * @param now The current time, tasks due before it are overdue.
+     * @param inDay The time one day from now.
+     * @param inWeek The time one week from now.
+     * @return The numbers of tasks in every due date bucket.
+     */
+    @Query("SELECT"
+            + " COALESCE(SUM(CASE WHEN t.dueDate < :now THEN 1 ELSE 0 END), 0) AS overdue,"
+            + " COALESCE(SUM(CASE WHEN t.dueDate >= :now AND t.dueDate < :inDay THEN 1 ELSE 0 END), 0) AS dueWithinDay,"
+            + " COALESCE(SUM(CASE WHEN t.dueDate >= :inDay AND t.dueDate < :inWeek THEN 1 ELSE 0 END), 0) AS dueWithinWeek,"
+            + " COALESCE(SUM(CASE WHEN t.dueDate >= :inWeek THEN 1 ELSE 0 END), 0) AS dueLater,"
+            + " COALESCE(SUM(CASE WHEN t.dueDate IS NULL THEN 1 ELSE 0 END), 0) AS noDueDate"
+            + " FROM Task t WHERE t.status IN :statuses")
+    TaskDueDateCounts countByDueDate(@Param("statuses") Collection<TaskStatus> statuses,
+                                     @Param("now") LocalDateTime now,
+                                     @Param("inDay") LocalDateTime inDay,
+                                     @Param("inWeek") LocalDateTime inWeek);
+}
@@ -0,0 +1,50 @@
+package org.example.tasmag.task;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Custom repository fragment for statements that Spring Data can't derive,
+ * such as updates with a dynamic set of columns or an optional version check,
+ * or queries of IDs only of tasks matching a specification.
+ */
+public interface TaskRepositoryCustom {
+
+    /**
+     * Replaces all fields of the task with the given ID in a single statement, without loading it first.
+     * The version of the task is incremented. The task is only updated if its status may change to the new one,
+     * see {@link TaskStatus#canTransitionTo}.
+     *
+     * @param id The ID of the task to update.
+     * @param task The new state of the task.
+     * @param expectedVersion The version the task must have to be updated, or null to update any version.
+     * @return The number of updated tasks, 0 if the task doesn't exist, has a different version,
+     *         or a status that can't change to the new one.
+     */
+    int updateTask(Long id, Task task, Long expectedVersion);
+
+    /**
+     * Updates the fields set in the patch of the task with the given ID in a single statement.
+     * The version of the task is incremented. A task whose status is patched is only updated if its status
+     * may change to the new one, see {@link TaskStatus#canTransitionTo}.
+     *
+     * @param id The ID of the task to update.
+     * @param patch The fields to update.
+     * @param expectedVersion The version the task must have to be updated, or null to update any version.
+     * @return The number of updated tasks, 0 if the task doesn't exist, has a different version,
+     *         or a status that can't change to the new one.
+     */
+    int patchTask(Long id, TaskPatch patch, Long expectedVersion);
+
+    /**
+     * Finds the IDs of tasks matching the specification with an ID greater than the given one, ordered by ID.
+     * Only the IDs are read, the tasks aren't loaded.
+     *
+     * @param specification The criteria the tasks must match.
+     * @param afterId The ID after which the tasks are found, 0 for the first ones.
+     * @param limit The maximum number of IDs to return.
+     * @return The IDs of at most {@code limit} matching tasks.
+     */
+    List<Long> findIds(Specification<Task> specification, long afterId, int limit);
+}
@@ -0,0 +1,114 @@
+package org.example.tasmag.task;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Implementation of {@link TaskRepositoryCustom} based on the JPA Criteria API.
+ */
+class TaskRepositoryCustomImpl implements TaskRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    TaskRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional
+    public int updateTask(Long id, Task task, Long expectedVersion) {
+        CriteriaUpdate<Task> update = entityManager.getCriteriaBuilder().createCriteriaUpdate(Task.class);
+        Root<Task> root = update.from(Task.class);
+
+        update.set(root.<String>get("name"), task.getName());
+        update.set(root.<String>get("description"), task.getDescription());
+        update.set(root.<LocalDateTime>get("createdAt"), task.getCreatedAt());
+        update.set(root.<LocalDateTime>get("dueDate"), task.getDueDate());
+        update.set(root.<TaskStatus>get("status"), task.getStatus());
+        update.set(root.<Long>get("ownerId"), task.getOwnerId());
+        update.set(root.<Long>get("assigneeId"), task.getAssigneeId());
+        return execute(update, root, id, expectedVersion, task.getStatus());
+    }
+
+    @Override
+    @Transactional
+    public int patchTask(Long id, TaskPatch patch, Long expectedVersion) {
+        CriteriaUpdate<Task> update = entityManager.getCriteriaBuilder().createCriteriaUpdate(Task.class);
+        Root<Task> root = update.from(Task.class);
+
+        if (patch.name() != null) {
+            update.set(root.<String>get("name"), patch.name());
+        }
+        if (patch.description() != null) {
+            update.set(root.<String>get("description"), patch.description());
+        }
+        if (patch.dueDate() != null) {
+            update.set(root.<LocalDateTime>get("dueDate"), patch.dueDate());
+        }
+        if (patch.status() != null) {
+            update.set(root.<TaskStatus>get("status"), patch.status());
+        }
+        if (patch.ownerId() != null) {
+            update.set(root.<Long>get("ownerId"), patch.ownerId());
+        }
+        if (patch.assigneeId() != null) {
+            update.set(root.<Long>get("assigneeId"), patch.assigneeId());
+        } else if (patch.unassign()) {
+            update.set(root.<Long>get("assigneeId"), entityManager.getCriteriaBuilder().nullLiteral(Long.class));
+        }
+        return execute(update, root, id, expectedVersion, patch.status());
+    }
+
+    @Override
+    public List<Long> findIds(Specification<Task> specification, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Task> root = query.from(Task.class);
+
+        Predicate afterCursor = cb.greaterThan(root.<Long>get("id"), afterId);
+        Predicate matches = specification.toPredicate(root, query, cb);
+        query.select(root.<Long>get("id"))
+                .where(matches == null ? afterCursor : cb.and(matches, afterCursor))
+                .orderBy(cb.asc(root.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Executes an update of the task with the given ID, which also has to have the expected version, if any,
+     * and a status that may change to the new one, if it is set. Keeping the status isn't a transition.
+     */
+    private int execute(CriteriaUpdate<Task> update, Root<Task> root, Long id, Long expectedVersion,
+                        TaskStatus status) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        update.set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), 1L));
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(root.get("id"), id));
+        if (expectedVersion != null) {
+            predicates.add(cb.equal(root.get("version"), expectedVersion));
+        }
+        if (status != null) {
+            Set<TaskStatus> sources = TaskStatus.sourcesOf(status);
+            sources.add(status);
+            predicates.add(root.<TaskStatus>get("status").in(sources));
+        }
+        update.where(predicates.toArray(new Predicate[0]));
+
+        // same semantics as @Modifying(flushAutomatically = true, clearAutomatically = true)
+        entityManager.flush();
+        int updated = entityManager.createQuery(update).executeUpdate();
+        entityManager.clear();
+        return updated;
+    }
+}
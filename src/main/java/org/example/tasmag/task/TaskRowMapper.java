@@ -0,0 +1,35 @@
+package org.example.tasmag.task;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * Maps rows of the {@code task} table to detached {@link Task} instances.
+ * Used by the plain JDBC code paths that bypass the persistence context, such as streaming.
+ */
+class TaskRowMapper implements RowMapper<Task> {
+
+    /**
+     * Columns expected by {@link #mapRow(ResultSet, int)}, in the order of the entity fields.
+     */
+    static final String COLUMNS = "id, name, description, created_at, due_date, status, owner_id, assignee_id, version";
+
+    @Override
+    public Task mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Task task = new Task();
+        task.setId(rs.getLong("id"));
+        task.setName(rs.getString("name"));
+        task.setDescription(rs.getString("description"));
+        task.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        task.setDueDate(rs.getObject("due_date", LocalDateTime.class));
+        String status = rs.getString("status");
+        task.setStatus(status != null ? TaskStatus.valueOf(status) : null);
+        task.setOwnerId(rs.getObject("owner_id", Long.class));
+        task.setAssigneeId(rs.getObject("assignee_id", Long.class));
+        task.setVersion(rs.getLong("version"));
+        return task;
+    }
+}
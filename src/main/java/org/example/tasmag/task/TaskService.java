@@ -1,29 +1,167 @@
 package org.example.tasmag.task;
 
+import io.micrometer.core.annotation.Timed;
+import org.example.tasmag.DatabasePlatform;
+import org.example.tasmag.MetricsConfiguration;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Service class for managing tasks.
- * Provides methods for CRUD operations and task existence checks.
+ * Provides methods for CRUD operations, paginated and streamed listing, search, and task existence checks.
+ * <p>
+ * Lookups by ID are served from the {@value #TASK_CACHE} cache. Every write evicts the affected task
+ * right after the statement and once more when the surrounding transaction completes,
+ * so a read following a write never sees the previous state.
+ * <p>
+ * Every change of a single task is published as a {@link TaskEvent} for the {@link TaskEventFeed}.
+ * <p>
+ * The latency of every method is recorded in the {@value MetricsConfiguration#SERVICE_TIMER} timer.
  */
 @Service
+@Timed(value = MetricsConfiguration.SERVICE_TIMER, histogram = true)
 public class TaskService {
 
+    private static final String STREAM_SQL =
+            "SELECT " + TaskRowMapper.COLUMNS + " FROM task WHERE id > ? ORDER BY id";
+
+    private static final TaskRowMapper TASK_ROW_MAPPER = new TaskRowMapper();
+
+    /**
+     * Name of the cache holding tasks by their ID, including misses of unknown IDs.
+     */
+    public static final String TASK_CACHE = "tasks";
+
     private final TaskRepository taskRepository;
+    private final ArchivedTaskRepository archivedTaskRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final Cache taskCache;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public TaskService(TaskRepository taskRepository) {
+    public TaskService(TaskRepository taskRepository,
+                       ArchivedTaskRepository archivedTaskRepository,
+                       JdbcTemplate jdbcTemplate,
+                       DatabasePlatform databasePlatform,
+                       CacheManager cacheManager,
+                       ApplicationEventPublisher eventPublisher) {
         this.taskRepository = taskRepository;
+        this.archivedTaskRepository = archivedTaskRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.databasePlatform = databasePlatform;
+        this.taskCache = cacheManager.getCache(TASK_CACHE);
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Retrieves a page of tasks matching the filter ordered by ID, starting after the given ID.
+     *
+     * @param filter The criteria the tasks must match.
+     * @param afterId The ID after which the page starts, 0 for the first page.
+     * @param limit The maximum number of tasks to return.
+     * @return A list of at most {@code limit} tasks.
+     */
+    public List<Task> findTasks(TaskFilter filter, long afterId, int limit) {
+        Specification<Task> afterCursor = (root, query, cb) -> cb.greaterThan(root.<Long>get("id"), afterId);
+        return taskRepository.findBy(filter.toSpecification().and(afterCursor),
+                query -> query.sortBy(Sort.by("id")).limit(limit).all());
+    }
+
+    /**
+     * Retrieves a page of tasks matching the filter ordered by ID, starting after the given ID,
+     * optionally including archived tasks.
+     * Archived tasks keep their IDs, so the pages of both tables are merged by ID into a single page.
+     *
+     * @param filter The criteria the tasks must match.
+     * @param afterId The ID after which the page starts, 0 for the first page.
+     * @param limit The maximum number of tasks to return.
+     * @param includeArchived Whether archived tasks are listed too.
+     * @return A list of at most {@code limit} tasks.
+     */
+    public List<Task> findTasks(TaskFilter filter, long afterId, int limit, boolean includeArchived) {
+        List<Task> tasks = findTasks(filter, afterId, limit);
+        if (!includeArchived) {
+            return tasks;
+        }
+        Specification<ArchivedTask> afterCursor = (root, query, cb) -> cb.greaterThan(root.<Long>get("id"), afterId);
+        List<ArchivedTask> archivedTasks = archivedTaskRepository.findBy(
+                filter.toArchivedSpecification().and(afterCursor),
+                query -> query.sortBy(Sort.by("id")).limit(limit).all());
+        if (archivedTasks.isEmpty()) {
+            return tasks;
+        }
+        List<Task> page = new ArrayList<>(limit);
+        int live = 0;
+        int archived = 0;
+        while (page.size() < limit && (live < tasks.size() || archived < archivedTasks.size())) {
+            if (archived == archivedTasks.size()
+                    || live < tasks.size() && tasks.get(live).getId() < archivedTasks.get(archived).getId()) {
+                page.add(tasks.get(live++));
+            } else {
+                page.add(archivedTasks.get(archived++).toTask());
+            }
+        }
+        return page;
     }
 
     /**
-     * Retrieves all tasks from the repository.
+     * Streams all tasks with an ID greater than the given one to the consumer, ordered by ID.
+     * Rows are read through a forward-only JDBC cursor and handed over one by one,
+     * so memory usage doesn't depend on the size of the table.
+     * The read-only transaction is required for PostgreSQL to fetch rows in batches instead of all at once.
      *
-     * @return An iterable collection of all tasks.
+     * @param afterId The ID after which the stream starts, 0 for all tasks.
+     * @param consumer The consumer receiving every task.
      */
-    public Iterable<Task> findAllTasks(){
-        return taskRepository.findAll();
+    @Transactional(readOnly = true)
+    public void streamTasks(long afterId, Consumer<Task> consumer) {
+        jdbcTemplate.query(STREAM_SQL,
+                (RowCallbackHandler) rs -> consumer.accept(TASK_ROW_MAPPER.mapRow(rs, 0)),
+                afterId);
+    }
+
+    /**
+     * Searches tasks by their names and descriptions.
+     * On PostgreSQL, the search uses the full-text index and orders tasks by relevance.
+     * On other databases, it falls back to a case-insensitive substring match, which takes {@code %} and {@code _}
+     * in the query literally.
+     *
+     * @param query The search query.
+     * @param page The zero-based index of the page to return.
+     * @param size The maximum number of tasks in the page.
+     * @return A list of at most {@code size} matching tasks.
+     */
+    public List<Task> searchTasks(String query, int page, int size) {
+        if (databasePlatform.isPostgreSql()) {
+            return taskRepository.searchRanked(query, size, (long) page * size);
+        }
+        return taskRepository.findAllByFullTextSearch(escapeLike(query), PageRequest.of(page, size));
+    }
+
+    /**
+     * Escapes the wildcards of a LIKE pattern, and the backslash escaping them, so that they match themselves.
+     */
+    static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
     /**
@@ -33,7 +171,23 @@ public class TaskService {
      * @return An Optional containing the task if found, or empty if not found.
      */
     public Optional<Task> findTaskById(Long id){
-        return taskRepository.findById(id);
+        return Optional.ofNullable(taskCache.get(id, () -> taskRepository.findById(id).orElse(null)));
+    }
+
+    /**
+     * Retrieves a task by its ID, optionally looking it up in the archive if it isn't a live task.
+     * Archived tasks aren't cached, they are only read when asked for.
+     *
+     * @param id The ID of the task.
+     * @param includeArchived Whether an archived task is retrieved too.
+     * @return An Optional containing the task if found, or empty if not found.
+     */
+    public Optional<Task> findTaskById(Long id, boolean includeArchived) {
+        Optional<Task> task = findTaskById(id);
+        if (task.isPresent() || !includeArchived) {
+            return task;
+        }
+        return archivedTaskRepository.findById(id).map(ArchivedTask::toTask);
     }
 
     /**
@@ -43,16 +197,116 @@ public class TaskService {
      * @return The saved task.
      */
     public Task saveTask(Task task){
-        return taskRepository.save(task);
+        boolean created = task.getId() == null;
+        Task savedTask = taskRepository.save(task);
+        evictTask(savedTask.getId());
+        eventPublisher.publishEvent(TaskEvent.of(created ? TaskEvent.Type.CREATED : TaskEvent.Type.UPDATED,
+                savedTask.getId(), savedTask.getStatus()));
+        return savedTask;
     }
 
     /**
-     * Deletes a task by its ID.
+     * Replaces all fields of an existing task in a single statement.
+     *
+     * @param id The ID of the task to update.
+     * @param task The new state of the task.
+     * @param expectedVersion The version the task must have, or null to update any version.
+     * @return The outcome of the update.
+     */
+    public TaskUpdateResult updateTask(Long id, Task task, Long expectedVersion) {
+        int updated = taskRepository.updateTask(id, task, expectedVersion);
+        evictTask(id);
+        if (updated > 0) {
+            eventPublisher.publishEvent(TaskEvent.of(TaskEvent.Type.UPDATED, id, task.getStatus()));
+        }
+        return toUpdateResult(updated, id, expectedVersion, task.getStatus());
+    }
+
+    /**
+     * Updates the fields set in the patch of an existing task in a single statement.
+     *
+     * @param id The ID of the task to update.
+     * @param patch The fields to update.
+     * @param expectedVersion The version the task must have, or null to update any version.
+     * @return The outcome of the update.
+     */
+    public TaskUpdateResult patchTask(Long id, TaskPatch patch, Long expectedVersion) {
+        int updated = taskRepository.patchTask(id, patch, expectedVersion);
+        evictTask(id);
+        if (updated > 0) {
+            eventPublisher.publishEvent(patch.status() != null
+                    ? TaskEvent.of(TaskEvent.Type.STATUS_CHANGED, id, patch.status())
+                    : TaskEvent.of(TaskEvent.Type.UPDATED, id, null));
+        }
+        return toUpdateResult(updated, id, expectedVersion, patch.status());
+    }
+
+    private TaskUpdateResult toUpdateResult(int updated, Long id, Long expectedVersion, TaskStatus status) {
+        if (updated > 0) {
+            return TaskUpdateResult.UPDATED;
+        }
+        if (status == null) {
+            // nothing was updated, an extra lookup tells a stale version from a missing task
+            return expectedVersion != null && existsById(id)
+                    ? TaskUpdateResult.VERSION_MISMATCH
+                    : TaskUpdateResult.NOT_FOUND;
+        }
+        // the status lookup also tells a forbidden transition, or one made forbidden by a concurrent update
+        Optional<TaskStatus> current = taskRepository.findStatusById(id);
+        if (current.isEmpty()) {
+            return TaskUpdateResult.NOT_FOUND;
+        }
+        if (expectedVersion != null && (current.get() == status || current.get().canTransitionTo(status))) {
+            return TaskUpdateResult.VERSION_MISMATCH;
+        }
+        return TaskUpdateResult.INVALID_TRANSITION;
+    }
+
+    /**
+     * Deletes a task by its ID in a single statement.
      *
      * @param id The ID of the task to delete.
+     * @return True if the task was deleted, false if it doesn't exist.
      */
-    public void deleteTask(Long id){
-        taskRepository.deleteById(id);
+    public boolean deleteTask(Long id){
+        int deleted = taskRepository.deleteTaskById(id);
+        evictTask(id);
+        if (deleted > 0) {
+            eventPublisher.publishEvent(TaskEvent.of(TaskEvent.Type.DELETED, id, null));
+        }
+        return deleted > 0;
+    }
+
+    /**
+     * Moves all tasks owned by or assigned to a user to another user, in one statement per role.
+     * Archived tasks are moved too, so that they stay with the user's tasks.
+     * The tasks aren't loaded, so the whole task cache is cleared instead of evicting them one by one.
+     *
+     * @param fromUserId The ID of the user whose tasks are moved.
+     * @param toUserId The ID of the user receiving the tasks, or null to leave them without owner and assignee.
+     * @return The number of updated tasks, counting tasks both owned and assigned twice.
+     */
+    @Transactional
+    public int reassignUserTasks(Long fromUserId, Long toUserId) {
+        int updated = taskRepository.reassignOwner(fromUserId, toUserId)
+                + taskRepository.reassignAssignee(fromUserId, toUserId);
+        archivedTaskRepository.reassignOwner(fromUserId, toUserId);
+        archivedTaskRepository.reassignAssignee(fromUserId, toUserId);
+        if (updated > 0) {
+            clearTasks();
+        }
+        return updated;
+    }
+
+    /**
+     * Checks that the users a task refers to as its owner and assignee exist.
+     *
+     * @param userIds The IDs of the users, null for a role nobody has.
+     * @return True if all of the users exist, false otherwise.
+     */
+    public boolean usersExist(Long... userIds) {
+        Set<Long> ids = Arrays.stream(userIds).filter(Objects::nonNull).collect(Collectors.toSet());
+        return ids.isEmpty() || taskRepository.countUsersByIdIn(ids) == ids.size();
     }
 
     /**
@@ -62,6 +316,39 @@ public class TaskService {
      * @return True if the task exists, false otherwise.
      */
     public boolean existsById(Long id) {
-        return taskRepository.existsById(id);
+        return findTaskById(id).isPresent();
+    }
+
+    /**
+     * Clears the task cache now and again after the current transaction, if there is one, completes.
+     */
+    private void clearTasks() {
+        taskCache.clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    taskCache.clear();
+                }
+            });
+        }
+    }
+
+    /**
+     * Removes a task from the cache now and again after the current transaction, if there is one, completes.
+     * The second eviction drops entries loaded by concurrent readers before the transaction committed.
+     *
+     * @param id The ID of the changed task.
+     */
+    private void evictTask(Long id) {
+        taskCache.evict(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    taskCache.evict(id);
+                }
+            });
+        }
     }
 }
@@ -0,0 +1,41 @@
+package org.example.tasmag.task;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Snapshot of aggregated task statistics.
+ * The total and the numbers by status include archived tasks. The overdue count and the histogram
+ * cover open tasks, which are never archived.
+ *
+ * @param total The number of all tasks, live and archived.
+ * @param byStatus The number of tasks for every status, live and archived.
+ * @param archived The number of archived tasks, included in the total.
+ * @param overdue The number of open tasks whose due date has passed.
+ * @param dueDateHistogram The numbers of open tasks by the time left until their due date.
+ * @param refreshedAt The time the snapshot was computed.
+ */
+public record TaskStats(long total,
+                        Map<TaskStatus, Long> byStatus,
+                        long archived,
+                        long overdue,
+                        DueDateHistogram dueDateHistogram,
+                        LocalDateTime refreshedAt) {
+
+    /**
+     * Numbers of open tasks by the time left until their due date.
+     *
+     * @param overdue Tasks whose due date has passed.
+     * @param dueWithinDay Tasks due within the next day.
+     * @param dueWithinWeek Tasks due within the next week, but not within the next day.
+     * @param dueLater Tasks due later than in a week.
+     * @param noDueDate Tasks without a due date.
+     */
+    public record DueDateHistogram(long overdue, long dueWithinDay, long dueWithinWeek, long dueLater, long noDueDate) {
+
+        static DueDateHistogram of(TaskDueDateCounts counts) {
+            return new DueDateHistogram(counts.getOverdue(), counts.getDueWithinDay(), counts.getDueWithinWeek(),
+                    counts.getDueLater(), counts.getNoDueDate());
+        }
+    }
+}
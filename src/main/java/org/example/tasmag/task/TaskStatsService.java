@@ -0,0 +1,80 @@
+package org.example.tasmag.task;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Service class providing aggregated task statistics.
+ * The statistics are computed by aggregate queries in the background every
+ * {@code tasmag.tasks.stats.refresh-interval-ms} milliseconds and served from memory,
+ * so reading them costs the same regardless of the number of tasks or how often they are polled.
+ * Computing them periodically rather than counting every write keeps them correct
+ * for set-based statements, whose affected rows are never loaded.
+ * Archived tasks are counted too, so that archiving finished tasks doesn't change the numbers by status.
+ */
+@Service
+public class TaskStatsService {
+
+    private final TaskRepository taskRepository;
+    private final ArchivedTaskRepository archivedTaskRepository;
+    private final AtomicReference<TaskStats> snapshot = new AtomicReference<>();
+
+    public TaskStatsService(TaskRepository taskRepository, ArchivedTaskRepository archivedTaskRepository) {
+        this.taskRepository = taskRepository;
+        this.archivedTaskRepository = archivedTaskRepository;
+    }
+
+    /**
+     * Returns the latest snapshot of the statistics, computing it first if there is none yet.
+     *
+     * @return The task statistics, at most one refresh interval old.
+     */
+    public TaskStats getStats() {
+        TaskStats stats = snapshot.get();
+        return stats != null ? stats : refresh();
+    }
+
+    /**
+     * Recomputes the statistics and replaces the snapshot served by {@link #getStats()}.
+     *
+     * @return The new snapshot.
+     */
+    @Scheduled(fixedDelayString = "${tasmag.tasks.stats.refresh-interval-ms:5000}")
+    @Transactional(readOnly = true)
+    public TaskStats refresh() {
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<TaskStatus, Long> byStatus = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : TaskStatus.values()) {
+            byStatus.put(status, 0L);
+        }
+        long total = 0;
+        for (TaskStatusCount count : taskRepository.countByStatus()) {
+            if (count.getStatus() != null) {
+                byStatus.merge(count.getStatus(), count.getCount(), Long::sum);
+            }
+            total += count.getCount();
+        }
+        long archived = 0;
+        for (TaskStatusCount count : archivedTaskRepository.countByStatus()) {
+            if (count.getStatus() != null) {
+                byStatus.merge(count.getStatus(), count.getCount(), Long::sum);
+            }
+            archived += count.getCount();
+        }
+        total += archived;
+
+        TaskStats.DueDateHistogram histogram = TaskStats.DueDateHistogram.of(
+                taskRepository.countByDueDate(TaskStatus.OPEN, now, now.plusDays(1), now.plusWeeks(1)));
+
+        TaskStats stats = new TaskStats(total, byStatus, archived, histogram.overdue(), histogram, now);
+        snapshot.set(stats);
+        return stats;
+    }
+}
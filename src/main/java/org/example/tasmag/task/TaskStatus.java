@@ -1,5 +1,10 @@
 package org.example.tasmag.task;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Enum representing the various statuses a task can have.
  */
@@ -27,5 +32,56 @@ public enum TaskStatus {
     /**
      * The task could not be completed.
      */
-    FAILED,
+    FAILED;
+
+    /**
+     * Statuses of tasks that are still to be done.
+     */
+    public static final Set<TaskStatus> OPEN = EnumSet.of(PENDING, IN_PROGRESS);
+
+    /**
+     * Statuses of tasks that are finished for good, moved to the archive once they are old enough.
+     */
+    public static final Set<TaskStatus> ARCHIVABLE = EnumSet.of(COMPLETED, CANCELLED);
+
+    /**
+     * Statuses every status may be changed to, by a bulk transition as well as an update of a single task.
+     * Open tasks may be finished in any way, failed tasks may be reopened or given up,
+     * completed and cancelled tasks are final. Updates keeping the status of a task aren't transitions.
+     */
+    private static final Map<TaskStatus, Set<TaskStatus>> TRANSITIONS = new EnumMap<>(TaskStatus.class);
+
+    static {
+        TRANSITIONS.put(PENDING, EnumSet.of(IN_PROGRESS, COMPLETED, CANCELLED, FAILED));
+        TRANSITIONS.put(IN_PROGRESS, EnumSet.of(PENDING, COMPLETED, CANCELLED, FAILED));
+        TRANSITIONS.put(COMPLETED, EnumSet.noneOf(TaskStatus.class));
+        TRANSITIONS.put(CANCELLED, EnumSet.noneOf(TaskStatus.class));
+        TRANSITIONS.put(FAILED, EnumSet.of(PENDING, IN_PROGRESS, CANCELLED));
+    }
+
+    /**
+     * Checks if a task with this status may be changed to the given status.
+     *
+     * @param next The new status.
+     * @return True if the transition is allowed, false otherwise.
+     */
+    public boolean canTransitionTo(TaskStatus next) {
+        return TRANSITIONS.get(this).contains(next);
+    }
+
+    /**
+     * Returns the statuses a task may have to be changed to the given status.
+     *
+     * @param next The new status.
+     * @return The statuses allowed to transition to the new status, empty if there are none.
+     */
+    public static Set<TaskStatus> sourcesOf(TaskStatus next) {
+        Set<TaskStatus> sources = EnumSet.noneOf(TaskStatus.class);
+        for (TaskStatus status : values()) {
+            if (status.canTransitionTo(next)) {
+                sources.add(status);
+            }
+        }
+        return sources;
+    }
 }
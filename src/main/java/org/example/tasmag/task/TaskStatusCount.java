@@ -0,0 +1,11 @@
+package org.example.tasmag.task;
+
+/**
+ * Projection of the number of tasks having a status.
+ */
+public interface TaskStatusCount {
+
+    TaskStatus getStatus();
+
+    long getCount();
+}
@@ -0,0 +1,232 @@
+package org.example.tasmag.task;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.example.tasmag.DatabasePlatform;
+import org.example.tasmag.ImportResult;
+import org.example.tasmag.TransferCodec;
+import org.example.tasmag.TransferFormat;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service class for exporting all tasks and importing them again, for example to restore a backup into another database.
+ * <p>
+ * Exports read the tasks through the JDBC cursor of {@link TaskService#streamTasks(long, java.util.function.Consumer)}
+ * and write them one by one, imports read and store them one by one, so neither holds more than a row in memory.
+ * Only live tasks are exported, archived tasks stay in the archive.
+ * <p>
+ * Imported tasks keep their IDs and are stored in a single transaction, so an import is stored either completely
+ * or not at all. On PostgreSQL the rows are streamed into {@code COPY}, other databases insert them in JDBC batches
+ * of {@code tasmag.tasks.batch.chunk-size} rows. Afterwards {@code task_seq} is moved past the highest ID,
+ * so that new tasks don't collide with imported ones. IDs allocated by a running instance before the import
+ * are still handed out, imports should therefore use IDs not reached by the sequence yet, or an empty table.
+ * <p>
+ * Imports aren't published as {@link TaskEvent}s, the task cache is cleared instead.
+ */
+@Service
+public class TaskTransferService {
+
+    /**
+     * Properties of tasks in the order of the CSV columns.
+     */
+    static final List<String> COLUMNS = List.of(
+            "id", "name", "description", "createdAt", "dueDate", "status", "ownerId", "assigneeId", "version");
+
+    /**
+     * Properties of tasks streamed into {@code COPY}, in the order of {@link #COPY_SQL}. The version starts at 0.
+     */
+    private static final List<String> COPY_COLUMNS = COLUMNS.subList(0, COLUMNS.size() - 1);
+
+    private static final String COPY_SQL = "COPY task (id, name, description, created_at, due_date, status,"
+            + " owner_id, assignee_id) FROM STDIN WITH (FORMAT csv)";
+
+    private static final String INSERT_SQL = "INSERT INTO task (id, name, description, created_at, due_date, status,"
+            + " owner_id, assignee_id, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    /**
+     * Moves the sequence past the highest ID, and past the IDs already allocated from it, which may be in use.
+     */
+    private static final String MOVE_SEQUENCE_SQL = "SELECT setval('task_seq', GREATEST("
+            + "(SELECT COALESCE(MAX(id), 0) + 1 FROM task),"
+            + " (SELECT last_value + " + Task.ID_ALLOCATION_SIZE + " FROM task_seq)), false)";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final TaskService taskService;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final TransferCodec transferCodec;
+    private final Cache taskCache;
+    private final int chunkSize;
+
+    public TaskTransferService(TaskService taskService,
+                               JdbcTemplate jdbcTemplate,
+                               DatabasePlatform databasePlatform,
+                               TransferCodec transferCodec,
+                               CacheManager cacheManager,
+                               @Value("${tasmag.tasks.batch.chunk-size:1000}") int chunkSize) {
+        this.taskService = taskService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.databasePlatform = databasePlatform;
+        this.transferCodec = transferCodec;
+        this.taskCache = cacheManager.getCache(TaskService.TASK_CACHE);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Writes all tasks ordered by ID to the given stream.
+     *
+     * @param format The format to write.
+     * @param output The stream to write to.
+     * @throws IOException if writing to the stream fails.
+     */
+    public void exportTasks(TransferFormat format, OutputStream output) throws IOException {
+        try (SequenceWriter writer = transferCodec.writer(format, Task.class, COLUMNS, output)) {
+            taskService.streamTasks(0, task -> {
+                try {
+                    writer.write(task);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Stores all tasks read from the given iterator with their IDs, in a single transaction.
+     * Versions aren't imported, every task starts at version 0.
+     *
+     * @param tasks The tasks read from the request body.
+     * @return The number of imported tasks.
+     * @throws IOException if the tasks can't be read.
+     * @throws IllegalArgumentException if a task has no ID.
+     * @throws org.springframework.dao.DataIntegrityViolationException if a task has the ID of an existing one,
+     *         or refers to a user that doesn't exist.
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public ImportResult importTasks(MappingIterator<Task> tasks) throws IOException {
+        long imported = databasePlatform.isPostgreSql() ? copyTasks(tasks) : insertTasks(tasks);
+        moveSequence();
+        clearTasks();
+        return new ImportResult(imported);
+    }
+
+    /**
+     * Streams the tasks into {@code COPY} on the connection of the current transaction.
+     * Rows are sent as they are read, the database reports a failing row when the copy ends.
+     */
+    private long copyTasks(MappingIterator<Task> tasks) throws IOException {
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            PGCopyOutputStream copy = new PGCopyOutputStream(connection.unwrap(PGConnection.class), COPY_SQL,
+                    COPY_BUFFER_SIZE);
+            try (SequenceWriter writer = transferCodec.writer(TransferFormat.CSV, Task.class, COPY_COLUMNS, false, copy)) {
+                int row = 0;
+                while (tasks.hasNextValue()) {
+                    writer.write(checkId(tasks.nextValue(), ++row));
+                }
+            } catch (IOException | RuntimeException e) {
+                if (copy.isActive()) {
+                    try {
+                        copy.cancelCopy();
+                    } catch (SQLException cancelException) {
+                        e.addSuppressed(cancelException);
+                    }
+                }
+                throw e;
+            }
+            return copy.endCopy();
+        } catch (SQLException e) {
+            throw jdbcTemplate.getExceptionTranslator().translate("COPY", COPY_SQL, e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Inserts the tasks in JDBC batches of {@code chunkSize} rows.
+     */
+    private long insertTasks(MappingIterator<Task> tasks) throws IOException {
+        List<Object[]> batch = new ArrayList<>(chunkSize);
+        long imported = 0;
+        int row = 0;
+        while (tasks.hasNextValue()) {
+            Task task = checkId(tasks.nextValue(), ++row);
+            batch.add(new Object[]{task.getId(), task.getName(), task.getDescription(), task.getCreatedAt(),
+                    task.getDueDate(), task.getStatus() != null ? task.getStatus().name() : null,
+                    task.getOwnerId(), task.getAssigneeId()});
+            if (batch.size() == chunkSize) {
+                imported += insertBatch(batch);
+            }
+        }
+        return imported + insertBatch(batch);
+    }
+
+    private int insertBatch(List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+        int inserted = batch.size();
+        batch.clear();
+        return inserted;
+    }
+
+    private static Task checkId(Task task, int row) {
+        if (task.getId() == null) {
+            throw new IllegalArgumentException("Missing id of task " + row);
+        }
+        return task;
+    }
+
+    /**
+     * Moves {@code task_seq} past the highest ID of the tasks. Other databases than PostgreSQL allocate
+     * a block of IDs to find the position of the sequence, and restart it if the tasks reach beyond that block.
+     */
+    private void moveSequence() {
+        if (databasePlatform.isPostgreSql()) {
+            jdbcTemplate.queryForObject(MOVE_SEQUENCE_SQL, Long.class);
+            return;
+        }
+        Long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR task_seq", Long.class);
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM task", Long.class);
+        if (next != null && maxId != null && maxId >= next + Task.ID_ALLOCATION_SIZE) {
+            jdbcTemplate.execute("ALTER SEQUENCE task_seq RESTART WITH " + (maxId + 1));
+        }
+    }
+
+    /**
+     * Clears the task cache, which may hold misses of the imported IDs, now and again after the transaction completes.
+     */
+    private void clearTasks() {
+        taskCache.clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    taskCache.clear();
+                }
+            });
+        }
+    }
+}
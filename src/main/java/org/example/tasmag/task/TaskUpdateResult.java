@@ -0,0 +1,26 @@
+package org.example.tasmag.task;
+
+/**
+ * Outcome of an update of a single task.
+ */
+public enum TaskUpdateResult {
+    /**
+     * The task was updated.
+     */
+    UPDATED,
+
+    /**
+     * The task doesn't exist.
+     */
+    NOT_FOUND,
+
+    /**
+     * The task exists, but its version differs from the expected one.
+     */
+    VERSION_MISMATCH,
+
+    /**
+     * The task exists, but its status can't change to the new one.
+     */
+    INVALID_TRANSITION,
+}
@@ -0,0 +1,90 @@
+package org.example.tasmag.user;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Hashes passwords with Argon2, which is deliberately expensive in CPU time and memory.
+ * Hashing runs on a dedicated bounded executor, so a burst of signups uses at most its threads
+ * and is rejected once its queue is full, instead of occupying the threads serving other requests.
+ * <p>
+ * The executor is owned by this component rather than exposed as a bean,
+ * so it doesn't replace the application task executor configured by Spring Boot.
+ */
+@Component
+public class PasswordHasher implements DisposableBean {
+
+    /**
+     * Prefix of all encoded Argon2 hashes, followed by the variant, such as {@code id}.
+     */
+    private static final String HASH_PREFIX = "$argon2";
+
+    private final PasswordEncoder passwordEncoder = Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8();
+    private final ThreadPoolTaskExecutor executor;
+
+    /**
+     * Creates the hasher and starts its executor.
+     * Hashing is CPU bound, so more threads than cores wouldn't hash faster.
+     *
+     * @param poolSize Number of hashing threads, by default half of the available processors.
+     * @param queueCapacity Number of passwords waiting for a thread before new ones are rejected.
+     */
+    public PasswordHasher(@Value("${tasmag.users.password-hashing.pool-size:0}") int poolSize,
+                          @Value("${tasmag.users.password-hashing.queue-capacity:100}") int queueCapacity) {
+        int threads = poolSize > 0 ? poolSize : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("password-hashing-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+    }
+
+    /**
+     * Hashes a password on the hashing executor.
+     * Stages chained to the returned future without an executor usually run on the hashing thread as well.
+     *
+     * @param rawPassword The password in plain text.
+     * @return A future completed with the encoded hash, including the algorithm parameters and salt.
+     * @throws TaskRejectedException if all hashing threads are busy and the queue is full
+     */
+    public CompletableFuture<String> hash(String rawPassword) {
+        return CompletableFuture.supplyAsync(() -> passwordEncoder.encode(rawPassword), executor);
+    }
+
+    /**
+     * Checks a password against a hash created by {@link #hash(String)}, on the calling thread.
+     *
+     * @param rawPassword The password in plain text.
+     * @param hash The stored hash.
+     * @return true if the password matches, false otherwise.
+     */
+    public boolean matches(String rawPassword, String hash) {
+        return passwordEncoder.matches(rawPassword, hash);
+    }
+
+    /**
+     * Checks whether a value looks like a hash created by {@link #hash(String)}, rather than a password in plain text.
+     *
+     * @param value The value to check, may be null.
+     * @return true if the value is an encoded Argon2 hash, false otherwise.
+     */
+    public static boolean isHash(String value) {
+        return value != null && value.startsWith(HASH_PREFIX);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
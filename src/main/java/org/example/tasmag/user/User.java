@@ -1,12 +1,20 @@
 package org.example.tasmag.user;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.example.tasmag.FieldSelection;
+
+import java.util.Locale;
 
 /**
  * Entity representing a User in the system.
  * Contains basic user information such as username, email, and password.
+ * Usernames and emails are unique regardless of case, enforced by the unique indexes on {@code lower(username)}
+ * and {@code lower(email)} of the V6 migration, which the entity mappings can't express.
  */
 @Entity
+@JsonFilter(FieldSelection.FILTER_ID)
 @Table(name = "users")
 public class User {
 
@@ -16,6 +24,12 @@ public class User {
 
     private String username;
     private String email;
+
+    /**
+     * Hash of the password, set by {@link UserService#createUser(User)} from the password sent by the client.
+     * Accepted in request bodies, never written to responses.
+     */
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
 
     /**
@@ -33,10 +47,21 @@ public class User {
      */
     public User(String username, String email, String password) {
         this.username = username;
-        this.email = email;
+        this.email = normalizeEmail(email);
         this.password = password;
     }
 
+    /**
+     * Normalizes an email address the way it is stored, trimmed and in lower case.
+     * Lookups by email have to normalize their input the same way.
+     *
+     * @param email The email address to normalize, may be null.
+     * @return The normalized email address, or null if the given one is null.
+     */
+    public static String normalizeEmail(String email) {
+        return email != null ? email.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
     public Long getId() {
         return id;
     }
@@ -58,7 +83,7 @@ public class User {
     }
 
     public void setEmail(String email) {
-        this.email = email;
+        this.email = normalizeEmail(email);
     }
 
     public String getPassword() {
@@ -1,11 +1,34 @@
 package org.example.tasmag.user;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.tasmag.FieldSelection;
+import org.example.tasmag.IdempotencyFingerprintAdvice;
+import org.example.tasmag.IdempotencyStore;
+import org.example.tasmag.ImportResult;
+import org.example.tasmag.KeysetCursor;
+import org.example.tasmag.TransferCodec;
+import org.example.tasmag.TransferFormat;
+import org.example.tasmag.task.Task;
+import org.example.tasmag.task.TaskFilter;
+import org.example.tasmag.task.TaskService;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.ZipException;
 
 /**
  * UserController manages user-related HTTP requests such as retrieving, creating, and deleting users.
@@ -13,48 +36,231 @@ import java.util.List;
  * <p>
  * Endpoints:
  * <ul>
- *     <li>GET /users - retrieves a list of all users</li>
+ *     <li>GET /users - retrieves a page of users</li>
+ *     <li>GET /users?email={email} - retrieves a user by email</li>
  *     <li>POST /users - creates a new user</li>
+ *     <li>GET /users/export - exports all users as CSV or newline-delimited JSON</li>
+ *     <li>POST /users/import - imports exported users with their IDs</li>
  *     <li>GET /users/{id} - retrieves a user by ID</li>
  *     <li>DELETE /users/{id} - deletes a user by ID</li>
+ *     <li>GET /users/{id}/tasks - retrieves a page of tasks assigned to or owned by a user</li>
  * </ul>
+ * Users and tasks in responses are written with the properties listed by the
+ * {@value FieldSelection#PARAMETER} parameter only, or with all of them if it is omitted.
+ * Besides JSON, bodies may be encoded in binary CBOR, chosen by the Content-Type and Accept headers.
+ * A user created with an {@value IdempotencyStore#HEADER} header is created only once per key.
  */
 @RestController
 @RequestMapping("/users")
 public class UserController {
 
+    /**
+     * Scope of the idempotency keys of created users.
+     */
+    static final String IDEMPOTENCY_SCOPE = "users";
+
     private final UserService userService;
+    private final TaskService taskService;
+    private final IdempotencyStore idempotencyStore;
+    private final UserTransferService userTransferService;
+    private final TransferCodec transferCodec;
 
     /**
      * Constructor for UserController.
      *
      * @param userService the user service to handle user operations
+     * @param taskService the task service to list the tasks of users
+     * @param idempotencyStore the store of the idempotency keys of created users
+     * @param userTransferService the service to export and import all users
+     * @param transferCodec the codec to read imported users
      */
-    public UserController(UserService userService) {
+    public UserController(UserService userService,
+                          TaskService taskService,
+                          IdempotencyStore idempotencyStore,
+                          UserTransferService userTransferService,
+                          TransferCodec transferCodec) {
         this.userService = userService;
+        this.taskService = taskService;
+        this.idempotencyStore = idempotencyStore;
+        this.userTransferService = userTransferService;
+        this.transferCodec = transferCodec;
     }
 
     /**
-     * Get all users.
+     * Get a page of users ordered by ID, with their ID, username and email only.
+     * When the page is full, the response carries a {@code Link} header with {@code rel="next"}
+     * pointing to the following page.
      *
-     * @return ResponseEntity containing the list of all users with status 200 OK
+     * @param after opaque cursor returned by the previous page, omitted for the first page
+     * @param limit maximum number of users in the page, capped at {@value KeysetCursor#MAX_LIMIT}
+     * @return ResponseEntity containing the page of users with status 200 OK,
+     *         or status 400 BAD REQUEST if the cursor is malformed
      */
-    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<User>> getAllUsers() {
-        return ResponseEntity.ok(userService.getAllUsers());
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<UserSummary>> getAllUsers(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "" + KeysetCursor.DEFAULT_LIMIT) int limit) {
+        int pageSize = KeysetCursor.clampLimit(limit);
+        List<UserSummary> users = userService.getUsers(KeysetCursor.decode(after), pageSize);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (users.size() == pageSize) {
+            response.header(HttpHeaders.LINK, KeysetCursor.nextPageLink(users.get(pageSize - 1).id()));
+        }
+        return response.body(users);
+    }
+
+    /**
+     * Get user by email, ignoring case.
+     *
+     * @param email the email of the user to be retrieved
+     * @return ResponseEntity containing the user with the given email and status 200 OK if found,
+     *         or status 404 NOT FOUND if not found
+     */
+    @GetMapping(params = "email",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<User> getUserByEmail(@RequestParam("email") String email) {
+        return userService.getUserByEmail(email)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     /**
      * Create a new user.
+     * The password is hashed asynchronously, the request thread is released while it is.
+     * With an idempotency key, the user is created only if no earlier request used the same key;
+     * a repeated request returns the user created by the earlier one without creating another.
+     * A repeated request has to carry the same body as the earlier one.
      *
+     * @param idempotencyKey key chosen by the client to recognise retries of the request, omitted for none
      * @param user the user to be created, provided in the request body
-     * @return ResponseEntity containing the created user with status 201 CREATED
+     * @param request the request, whose fingerprint is bound to the key
+     * @return ResponseEntity containing the created user with status 201 CREATED,
+     *         status 400 BAD REQUEST if the password is missing or the key is too long,
+     *         status 404 NOT FOUND if the user created with the same key was deleted since,
+     *         status 409 CONFLICT if a user with the same email or username already exists
+     *         or a request with the same key is still in progress,
+     *         status 422 UNPROCESSABLE ENTITY if the key was used by another client or with another body,
+     *         or status 429 TOO MANY REQUESTS if too many users are being created at the moment
      */
-    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE,
-            produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<User> createUser(@RequestBody User user) {
-        User createdUser = userService.createUser(user);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdUser);
+    @PostMapping(consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public CompletableFuture<ResponseEntity<User>> createUser(
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @RequestBody User user,
+            HttpServletRequest request) {
+        if (user.getPassword() == null || user.getPassword().isBlank()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        user.setId(null);
+        if (idempotencyKey == null) {
+            return create(user);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyStore.MAX_KEY_LENGTH) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        IdempotencyStore.Reservation reservation = idempotencyStore.reserve(IDEMPOTENCY_SCOPE, idempotencyKey,
+                IdempotencyFingerprintAdvice.fingerprint(request));
+        if (reservation instanceof IdempotencyStore.Reservation.Completed completed) {
+            return CompletableFuture.completedFuture(userService.getUserById(completed.resourceId())
+                    .map(createdUser -> ResponseEntity.status(HttpStatus.CREATED)
+                            .header(IdempotencyStore.REPLAYED_HEADER, "true")
+                            .body(createdUser))
+                    .orElseGet(() -> ResponseEntity.notFound().build()));
+        }
+        if (reservation instanceof IdempotencyStore.Reservation.Mismatch) {
+            return CompletableFuture.completedFuture(ResponseEntity.unprocessableEntity().build());
+        }
+        if (reservation instanceof IdempotencyStore.Reservation.Pending) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.CONFLICT).header(HttpHeaders.RETRY_AFTER, "1").build());
+        }
+        return create(user).whenComplete((response, e) -> {
+            if (response != null && response.getStatusCode() == HttpStatus.CREATED) {
+                idempotencyStore.complete(IDEMPOTENCY_SCOPE, idempotencyKey, response.getBody().getId());
+            } else {
+                idempotencyStore.release(IDEMPOTENCY_SCOPE, idempotencyKey);
+            }
+        });
+    }
+
+    private CompletableFuture<ResponseEntity<User>> create(User user) {
+        try {
+            return userService.createUser(user)
+                    .thenApply(createdUser -> ResponseEntity.status(HttpStatus.CREATED).body(createdUser))
+                    .exceptionally(e -> {
+                        if (e.getCause() instanceof DataIntegrityViolationException) {
+                            return ResponseEntity.status(HttpStatus.CONFLICT).<User>build();
+                        }
+                        throw e instanceof RuntimeException runtimeException ? runtimeException : new IllegalStateException(e);
+                    });
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build());
+        }
+    }
+
+    /**
+     * Export all users ordered by ID as an attachment, with their ID, username and email,
+     * and their password hashes only if asked for. Users are written to the response as they are read
+     * from the database, compressed with gzip if the client accepts it.
+     *
+     * @param format the format of the export, {@code csv} with a header line by default, or {@code ndjson}
+     * @param passwords whether the password hashes are exported, which importing the users again requires
+     * @return ResponseEntity with the streamed body and status 200 OK,
+     *         or status 400 BAD REQUEST if the format is unknown
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            @RequestParam(value = "passwords", defaultValue = "false") boolean passwords) {
+        TransferFormat transferFormat;
+        try {
+            transferFormat = TransferFormat.fromName(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown format: " + format, e);
+        }
+        StreamingResponseBody body = outputStream -> userTransferService.exportUsers(transferFormat, passwords,
+                outputStream);
+        return ResponseEntity.ok()
+                .contentType(transferFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("users." + transferFormat.getFileExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    /**
+     * Import users exported by {@link #exportUsers(String, boolean)} with their password hashes, keeping their IDs,
+     * in a single transaction. Users without a password hash are refused rather than imported without a way to log in.
+     * Bodies compressed with gzip are accepted with {@code Content-Encoding: gzip}.
+     *
+     * @param contentType the content type of the body, {@code text/csv} or {@code application/x-ndjson}
+     * @param contentEncoding the encoding of the body, omitted if it isn't compressed
+     * @param body the request body with the users to be imported
+     * @return ResponseEntity containing the number of imported users with status 200 OK,
+     *         status 400 BAD REQUEST if the body is malformed or a user has no ID or password hash,
+     *         or status 409 CONFLICT if a user has the ID, email or username of an existing one
+     * @throws IOException if reading the request body fails
+     */
+    @PostMapping(value = "/import",
+            consumes = {TransferFormat.TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<ImportResult> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            InputStream body) throws IOException {
+        TransferFormat format = TransferFormat.fromMediaType(contentType);
+        try (MappingIterator<UserTransfer> users = transferCodec.reader(format, UserTransfer.class,
+                TransferCodec.decode(body, contentEncoding))) {
+            return ResponseEntity.ok(userTransferService.importUsers(users));
+        } catch (JsonProcessingException | ZipException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed input", e);
+        } catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Conflicting user", e);
+        }
     }
 
     /**
@@ -65,7 +271,7 @@ public class UserController {
      *         or status 404 NOT FOUND if not found
      */
     @GetMapping(value = "/{id}",
-            produces = MediaType.APPLICATION_JSON_VALUE)
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
     public ResponseEntity<User> getUserById(@PathVariable("id") Long id) {
         return userService.getUserById(id)
                 .map(ResponseEntity::ok)
@@ -75,16 +281,65 @@ public class UserController {
     /**
      * Delete a user by ID.
      *
+     * Tasks owned by or assigned to the user are moved to another user, or left without owner and assignee.
+     *
      * @param id the ID of the user to be deleted
+     * @param reassignTo the ID of the user receiving the tasks of the deleted one, omitted to unassign them
      * @return ResponseEntity with status 204 NO CONTENT if deletion is successful,
+     *         status 400 BAD REQUEST if the user receiving the tasks does not exist,
      *         or status 404 NOT FOUND if the user does not exist
      */
     @DeleteMapping(value = "/{id}")
-    public ResponseEntity<Void> deleteUser(@PathVariable("id") Long id) {
-        if (userService.existsById(id)) {
-            userService.deleteUser(id);
-            return ResponseEntity.noContent().build();
+    public ResponseEntity<Void> deleteUser(@PathVariable("id") Long id,
+                                           @RequestParam(value = "reassignTo", required = false) Long reassignTo) {
+        if (!userService.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        if (reassignTo != null && (reassignTo.equals(id) || !userService.existsById(reassignTo))) {
+            return ResponseEntity.badRequest().build();
+        }
+        userService.deleteUser(id, reassignTo);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Get a page of tasks assigned to or owned by a user, ordered by ID.
+     * Tasks can be filtered further with the same query parameters as the task listing.
+     * When the page is full, the response carries a {@code Link} header with {@code rel="next"}
+     * pointing to the following page.
+     *
+     * @param id the ID of the user
+     * @param role {@code assignee} to list the tasks assigned to the user, {@code owner} to list the tasks it owns
+     * @param filter further criteria the tasks must match, bound from the query parameters
+     * @param after opaque cursor returned by the previous page, omitted for the first page
+     * @param limit maximum number of tasks in the page, capped at {@value KeysetCursor#MAX_LIMIT}
+     * @return ResponseEntity containing the page of tasks with status 200 OK,
+     *         status 400 BAD REQUEST if the role, the cursor or a filter is malformed,
+     *         or status 404 NOT FOUND if the user does not exist
+     */
+    @GetMapping(value = "/{id}/tasks",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<Task>> getUserTasks(
+            @PathVariable("id") Long id,
+            @RequestParam(value = "role", defaultValue = "assignee") String role,
+            TaskFilter filter,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "" + KeysetCursor.DEFAULT_LIMIT) int limit) {
+        TaskFilter userFilter = switch (role) {
+            case "assignee" -> filter.withAssignee(id);
+            case "owner" -> filter.withOwner(id);
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown role: " + role);
+        };
+        if (!userService.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        int pageSize = KeysetCursor.clampLimit(limit);
+        List<Task> tasks = taskService.findTasks(userFilter, KeysetCursor.decode(after), pageSize);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (tasks.size() == pageSize) {
+            response.header(HttpHeaders.LINK, KeysetCursor.nextPageLink(tasks.get(pageSize - 1).getId()));
         }
-        return ResponseEntity.notFound().build();
+        return response.body(tasks);
     }
 }
@@ -1,7 +1,11 @@
 package org.example.tasmag.user;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -12,9 +16,23 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     /**
      * Retrieves a User entity by its email.
+     * The condition matches the case-insensitive unique index on the email column.
      *
-     * @param email the email of the User to retrieve
+     * @param email the normalized email of the User to retrieve, see {@link User#normalizeEmail(String)}
      * @return an Optional containing the User if found, or an empty Optional if not
      */
-    Optional<User> findByEmail(String email);
+    @Query("SELECT u FROM User u WHERE lower(u.email) = :email")
+    Optional<User> findByEmail(@Param("email") String email);
+
+    /**
+     * Retrieves a page of users ordered by ID, starting after the given ID.
+     * Only the columns of {@link UserSummary} are selected.
+     *
+     * @param afterId the ID after which the page starts, 0 for the first page
+     * @param limit the maximum number of users to return
+     * @return a list of at most {@code limit} user summaries
+     */
+    @Query("SELECT new org.example.tasmag.user.UserSummary(u.id, u.username, u.email) FROM User u"
+            + " WHERE u.id > :afterId ORDER BY u.id")
+    List<UserSummary> findSummariesAfter(@Param("afterId") long afterId, Limit limit);
 }
@@ -1,35 +1,66 @@
 package org.example.tasmag.user;
 
+import io.micrometer.core.annotation.Timed;
+import org.example.tasmag.MetricsConfiguration;
+import org.example.tasmag.task.TaskService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
  * Service class for managing {@link User} entities.
  * This class provides methods to perform operations related to User entities,
  * including retrieving, creating, and deleting users.
+ * Lookups by email are served from the {@value #USER_BY_EMAIL_CACHE} cache, which keeps misses as well,
+ * so repeated lookups of unknown emails don't reach the database either.
+ * The latency of every method is recorded in the {@value MetricsConfiguration#SERVICE_TIMER} timer.
  */
 @Service
+@Timed(value = MetricsConfiguration.SERVICE_TIMER, histogram = true)
 public class UserService {
 
+    /**
+     * Name of the cache holding users by their normalized email, including misses of unknown emails.
+     */
+    public static final String USER_BY_EMAIL_CACHE = "usersByEmail";
+
     private final UserRepository userRepository;
+    private final Cache userByEmailCache;
+    private final PasswordHasher passwordHasher;
+    private final TaskService taskService;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository,
+                       CacheManager cacheManager,
+                       PasswordHasher passwordHasher,
+                       TaskService taskService) {
         this.userRepository = userRepository;
+        this.userByEmailCache = cacheManager.getCache(USER_BY_EMAIL_CACHE);
+        this.passwordHasher = passwordHasher;
+        this.taskService = taskService;
     }
 
 
     /**
-     * Retrieves all users from the database.
+     * Retrieves a page of users ordered by ID, starting after the given ID.
      *
-     * @return a list of all users
+     * @param afterId the ID after which the page starts, 0 for the first page
+     * @param limit the maximum number of users to return
+     * @return a list of at most {@code limit} user summaries
      */
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public List<UserSummary> getUsers(long afterId, int limit) {
+        return userRepository.findSummariesAfter(afterId, Limit.of(limit));
     }
 
     /**
@@ -43,32 +74,56 @@ public class UserService {
     }
 
     /**
-     * Creates a new User in the database.
+     * Creates a new User in the database, storing a hash of its password.
+     * The password is hashed and the user saved on the executor of the {@link PasswordHasher},
+     * so the calling thread is free as soon as the work is queued.
      *
-     * @param user the User entity to create
-     * @return the created User entity
+     * @param user the User entity to create, holding the password in plain text
+     * @return a future completed with the created User entity,
+     *         or completed exceptionally if the user can't be saved
+     * @throws TaskRejectedException if the password hasher is saturated
      */
-    public User createUser(User user) {
-        return userRepository.save(user);
+    public CompletableFuture<User> createUser(User user) {
+        return passwordHasher.hash(user.getPassword()).thenApply(hash -> {
+            user.setPassword(hash);
+            return saveUser(user);
+        });
+    }
+
+    private User saveUser(User user) {
+        User createdUser = userRepository.save(user);
+        // drops a miss cached for the email before the user existed
+        userByEmailCache.evict(createdUser.getEmail());
+        return createdUser;
     }
 
     /**
      * Deletes a User by its ID.
+     * Tasks owned by or assigned to the user are moved to another user, or left without owner and assignee,
+     * in bulk statements that don't load them.
      *
      * @param id the ID of the User to delete
+     * @param reassignTo the ID of the User receiving the tasks of the deleted one, or null to unassign them
      */
-    public void deleteUser(Long id) {
-        userRepository.deleteById(id);
+    @Transactional
+    public void deleteUser(Long id, Long reassignTo) {
+        userRepository.findById(id).ifPresent(user -> {
+            taskService.reassignUserTasks(id, reassignTo);
+            userRepository.delete(user);
+            evictEmail(user.getEmail());
+        });
     }
 
     /**
-     * Retrieves a User by its email.
+     * Retrieves a User by its email, ignoring case and surrounding whitespace.
      *
      * @param email the email of the User to retrieve
      * @return an Optional containing the User if found, or an empty Optional if not
      */
     public Optional<User> getUserByEmail(String email) {
-        return userRepository.findByEmail(email);
+        String normalizedEmail = User.normalizeEmail(email);
+        return Optional.ofNullable(userByEmailCache.get(normalizedEmail,
+                () -> userRepository.findByEmail(normalizedEmail).orElse(null)));
     }
 
     /**
@@ -80,4 +135,22 @@ public class UserService {
     public boolean existsById(Long id) {
         return userRepository.existsById(id);
     }
+
+    /**
+     * Removes a user from the email cache now and again after the current transaction completes,
+     * dropping entries loaded by concurrent readers before the transaction committed.
+     *
+     * @param email the normalized email of the changed User
+     */
+    private void evictEmail(String email) {
+        userByEmailCache.evict(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    userByEmailCache.evict(email);
+                }
+            });
+        }
+    }
 }
@@ -0,0 +1,16 @@
+package org.example.tasmag.user;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import org.example.tasmag.FieldSelection;
+
+/**
+ * Public fields of a user, as listed by {@code GET /users}.
+ * Selected directly by the query, so listing users neither loads entities nor reads the password hashes.
+ *
+ * @param id The ID of the user.
+ * @param username The username of the user.
+ * @param email The email address of the user.
+ */
+@JsonFilter(FieldSelection.FILTER_ID)
+public record UserSummary(Long id, String username, String email) {
+}
@@ -0,0 +1,16 @@
+package org.example.tasmag.user;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A user as exported and imported by {@link UserTransferService}: the fields of {@link UserSummary}
+ * and, only when asked for, the password hash, so that imported users can still log in.
+ *
+ * @param id The ID of the user.
+ * @param username The username of the user.
+ * @param email The email address of the user.
+ * @param password The encoded password hash of the user, or null if it isn't exported.
+ */
+public record UserTransfer(Long id, String username, String email,
+                           @JsonInclude(JsonInclude.Include.NON_NULL) String password) {
+}
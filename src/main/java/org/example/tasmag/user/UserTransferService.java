@@ -0,0 +1,234 @@
+package org.example.tasmag.user;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.example.tasmag.DatabasePlatform;
+import org.example.tasmag.ImportResult;
+import org.example.tasmag.TransferCodec;
+import org.example.tasmag.TransferFormat;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service class for exporting all users and importing them again, the counterpart of
+ * {@link org.example.tasmag.task.TaskTransferService}. Users are exported before their tasks and imported before them,
+ * since tasks refer to their owners and assignees.
+ * <p>
+ * Password hashes are exported only when asked for, since they are secrets, but every imported user needs one,
+ * so that no account is imported without a way to log in.
+ * <p>
+ * Imported users keep their IDs and are stored in a single transaction, streamed into {@code COPY} on PostgreSQL
+ * and inserted in JDBC batches on other databases. Afterwards the identity of the table is moved past the highest ID.
+ */
+@Service
+public class UserTransferService {
+
+    /**
+     * Properties of users in the order of the CSV columns, without the password hash.
+     */
+    static final List<String> COLUMNS = List.of("id", "username", "email");
+
+    /**
+     * Properties of users in the order of the CSV columns, with the password hash.
+     */
+    static final List<String> COLUMNS_WITH_PASSWORD = List.of("id", "username", "email", "password");
+
+    private static final String EXPORT_SQL = "SELECT id, username, email FROM users ORDER BY id";
+
+    private static final String EXPORT_WITH_PASSWORD_SQL = "SELECT id, username, email, password FROM users ORDER BY id";
+
+    private static final String COPY_SQL = "COPY users (id, username, email, password) FROM STDIN WITH (FORMAT csv)";
+
+    private static final String INSERT_SQL = "INSERT INTO users (id, username, email, password) VALUES (?, ?, ?, ?)";
+
+    /**
+     * Moves the identity sequence past the highest ID, never back before IDs it already returned.
+     */
+    private static final String MOVE_SEQUENCE_SQL = "SELECT setval(pg_get_serial_sequence('users', 'id'), GREATEST("
+            + "(SELECT COALESCE(MAX(id), 0) FROM users),"
+            + " COALESCE(pg_sequence_last_value(pg_get_serial_sequence('users', 'id')::regclass), 0), 1))";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final TransferCodec transferCodec;
+    private final Cache userByEmailCache;
+    private final int chunkSize;
+
+    public UserTransferService(JdbcTemplate jdbcTemplate,
+                               DatabasePlatform databasePlatform,
+                               TransferCodec transferCodec,
+                               CacheManager cacheManager,
+                               @Value("${tasmag.tasks.batch.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databasePlatform = databasePlatform;
+        this.transferCodec = transferCodec;
+        this.userByEmailCache = cacheManager.getCache(UserService.USER_BY_EMAIL_CACHE);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Writes all users ordered by ID to the given stream.
+     * Rows are read through a forward-only JDBC cursor, which the read-only transaction lets PostgreSQL
+     * fetch in batches.
+     *
+     * @param format The format to write.
+     * @param passwords Whether the password hashes are written, which an import requires.
+     * @param output The stream to write to.
+     * @throws IOException if writing to the stream fails.
+     */
+    @Transactional(readOnly = true)
+    public void exportUsers(TransferFormat format, boolean passwords, OutputStream output) throws IOException {
+        List<String> columns = passwords ? COLUMNS_WITH_PASSWORD : COLUMNS;
+        try (SequenceWriter writer = transferCodec.writer(format, UserTransfer.class, columns, output)) {
+            jdbcTemplate.query(passwords ? EXPORT_WITH_PASSWORD_SQL : EXPORT_SQL, (RowCallbackHandler) rs -> {
+                try {
+                    writer.write(new UserTransfer(rs.getLong("id"), rs.getString("username"), rs.getString("email"),
+                            passwords ? rs.getString("password") : null));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Stores all users read from the given iterator with their IDs and password hashes, in a single transaction.
+     * Email addresses are normalized like those of created users.
+     *
+     * @param users The users read from the request body.
+     * @return The number of imported users.
+     * @throws IOException if the users can't be read.
+     * @throws IllegalArgumentException if a user has no ID or no password hash.
+     * @throws org.springframework.dao.DataIntegrityViolationException if a user has the ID, username or email address
+     *         of an existing one.
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public ImportResult importUsers(MappingIterator<UserTransfer> users) throws IOException {
+        long imported = databasePlatform.isPostgreSql() ? copyUsers(users) : insertUsers(users);
+        moveSequence();
+        clearUsers();
+        return new ImportResult(imported);
+    }
+
+    /**
+     * Streams the users into {@code COPY} on the connection of the current transaction.
+     */
+    private long copyUsers(MappingIterator<UserTransfer> users) throws IOException {
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            PGCopyOutputStream copy = new PGCopyOutputStream(connection.unwrap(PGConnection.class), COPY_SQL,
+                    COPY_BUFFER_SIZE);
+            try (SequenceWriter writer = transferCodec.writer(TransferFormat.CSV, UserTransfer.class, COLUMNS_WITH_PASSWORD, false,
+                    copy)) {
+                int row = 0;
+                while (users.hasNextValue()) {
+                    writer.write(normalize(users.nextValue(), ++row));
+                }
+            } catch (IOException | RuntimeException e) {
+                if (copy.isActive()) {
+                    try {
+                        copy.cancelCopy();
+                    } catch (SQLException cancelException) {
+                        e.addSuppressed(cancelException);
+                    }
+                }
+                throw e;
+            }
+            return copy.endCopy();
+        } catch (SQLException e) {
+            throw jdbcTemplate.getExceptionTranslator().translate("COPY", COPY_SQL, e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Inserts the users in JDBC batches of {@code chunkSize} rows.
+     */
+    private long insertUsers(MappingIterator<UserTransfer> users) throws IOException {
+        List<Object[]> batch = new ArrayList<>(chunkSize);
+        long imported = 0;
+        int row = 0;
+        while (users.hasNextValue()) {
+            UserTransfer user = normalize(users.nextValue(), ++row);
+            batch.add(new Object[]{user.id(), user.username(), user.email(), user.password()});
+            if (batch.size() == chunkSize) {
+                imported += insertBatch(batch);
+            }
+        }
+        return imported + insertBatch(batch);
+    }
+
+    private int insertBatch(List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+        int inserted = batch.size();
+        batch.clear();
+        return inserted;
+    }
+
+    private static UserTransfer normalize(UserTransfer user, int row) {
+        if (user.id() == null) {
+            throw new IllegalArgumentException("Missing id of user " + row);
+        }
+        if (!PasswordHasher.isHash(user.password())) {
+            throw new IllegalArgumentException("Missing password hash of user " + row);
+        }
+        return new UserTransfer(user.id(), user.username(), User.normalizeEmail(user.email()), user.password());
+    }
+
+    /**
+     * Moves the identity of the {@code users} table past the highest ID. Other databases than PostgreSQL
+     * restart it right after the highest ID.
+     */
+    private void moveSequence() {
+        if (databasePlatform.isPostgreSql()) {
+            jdbcTemplate.queryForObject(MOVE_SEQUENCE_SQL, Long.class);
+            return;
+        }
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Long.class);
+        if (maxId != null) {
+            jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN id RESTART WITH " + (maxId + 1));
+        }
+    }
+
+    /**
+     * Clears the cache of users by email, which may hold misses of the imported addresses,
+     * now and again after the transaction completes.
+     */
+    private void clearUsers() {
+        userByEmailCache.clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    userByEmailCache.clear();
+                }
+            });
+        }
+    }
+}
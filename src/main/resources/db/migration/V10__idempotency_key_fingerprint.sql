@@ -0,0 +1,3 @@
+-- Fingerprint of the request that reserved a key, covering the client and the request body.
+-- Keys reserved before have none and are accepted for any request until they expire.
+ALTER TABLE idempotency_key ADD COLUMN IF NOT EXISTS request_fingerprint VARCHAR(64);
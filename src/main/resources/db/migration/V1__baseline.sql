@@ -0,0 +1,17 @@
+-- Schema as created by Hibernate before migrations were introduced.
+-- Existing databases are baselined at this version and skip it.
+CREATE TABLE IF NOT EXISTS task (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        VARCHAR(255),
+    description VARCHAR(255),
+    created_at  TIMESTAMP(6),
+    due_date    TIMESTAMP(6),
+    status      VARCHAR(255) CHECK (status IN ('PENDING', 'IN_PROGRESS', 'COMPLETED', 'CANCELLED', 'FAILED'))
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(255),
+    email    VARCHAR(255),
+    password VARCHAR(255)
+);
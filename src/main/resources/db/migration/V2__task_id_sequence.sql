@@ -0,0 +1,7 @@
+-- Task IDs are allocated from a pooled sequence instead of an identity column,
+-- which lets Hibernate batch inserts. The increment matches the allocation size of Task.
+ALTER TABLE task ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS task_seq INCREMENT BY 50;
+
+SELECT setval('task_seq', COALESCE((SELECT MAX(id) FROM task), 0) + 1, false);
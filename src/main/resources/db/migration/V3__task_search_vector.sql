@@ -0,0 +1,6 @@
+-- Full-text search over task names and descriptions.
+-- The 'simple' configuration doesn't stem, so it works the same for any language of the task texts.
+ALTER TABLE task ADD COLUMN search_vector tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple', coalesce(name, '') || ' ' || coalesce(description, ''))) STORED;
+
+CREATE INDEX idx_task_search_vector ON task USING GIN (search_vector);
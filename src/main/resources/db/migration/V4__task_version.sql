@@ -0,0 +1,2 @@
+-- Version of a task used for optimistic locking and as its entity tag.
+ALTER TABLE task ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,4 @@
+-- Indexes serving the filters of the task listing, declared on the Task entity as well.
+CREATE INDEX IF NOT EXISTS idx_task_status_due_date ON task (status, due_date);
+
+CREATE INDEX IF NOT EXISTS idx_task_created_at ON task (created_at);
@@ -0,0 +1,8 @@
+-- Emails are stored in lower case from now on, so that lookups by email can match them exactly.
+UPDATE users SET email = lower(trim(email)) WHERE email <> lower(trim(email));
+
+-- Case-insensitive unique indexes, also serving the lookup by email.
+-- Fails if duplicates already exist; these have to be merged or removed by hand before migrating.
+CREATE UNIQUE INDEX IF NOT EXISTS ux_users_email ON users (lower(email));
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_users_username ON users (lower(username));
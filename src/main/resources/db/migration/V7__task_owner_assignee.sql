@@ -0,0 +1,11 @@
+-- Owner and assignee of tasks. The application nulls out or reassigns them in bulk before deleting a user,
+-- ON DELETE SET NULL only covers users deleted outside of it.
+ALTER TABLE task ADD COLUMN IF NOT EXISTS owner_id BIGINT REFERENCES users (id) ON DELETE SET NULL;
+
+ALTER TABLE task ADD COLUMN IF NOT EXISTS assignee_id BIGINT REFERENCES users (id) ON DELETE SET NULL;
+
+-- Serves the listing of tasks assigned to a user, optionally filtered by status and due date.
+CREATE INDEX IF NOT EXISTS idx_task_assignee_status_due_date ON task (assignee_id, status, due_date);
+
+-- Serves the listing of tasks owned by a user and the bulk updates when a user is deleted.
+CREATE INDEX IF NOT EXISTS idx_task_owner_id ON task (owner_id);
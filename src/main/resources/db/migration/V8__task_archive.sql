@@ -0,0 +1,22 @@
+-- Completed and cancelled tasks moved out of the task table by the archiver, so that the indexes
+-- of live tasks only cover live tasks. Rows keep the ID and version they had in the task table.
+CREATE TABLE IF NOT EXISTS task_archive (
+    id          BIGINT PRIMARY KEY,
+    name        VARCHAR(255),
+    description VARCHAR(255),
+    created_at  TIMESTAMP(6),
+    due_date    TIMESTAMP(6),
+    status      VARCHAR(255) CHECK (status IN ('PENDING', 'IN_PROGRESS', 'COMPLETED', 'CANCELLED', 'FAILED')),
+    owner_id    BIGINT REFERENCES users (id) ON DELETE SET NULL,
+    assignee_id BIGINT REFERENCES users (id) ON DELETE SET NULL,
+    version     BIGINT NOT NULL DEFAULT 0,
+    archived_at TIMESTAMP(6) NOT NULL
+);
+
+-- Serve the bulk updates of archived tasks when a user is deleted.
+CREATE INDEX IF NOT EXISTS idx_task_archive_owner_id ON task_archive (owner_id);
+
+CREATE INDEX IF NOT EXISTS idx_task_archive_assignee_id ON task_archive (assignee_id);
+
+-- Serves the selection of tasks to archive: finished tasks created before a given time.
+CREATE INDEX IF NOT EXISTS idx_task_status_created_at ON task (status, created_at);
@@ -0,0 +1,12 @@
+-- Keys of requests creating tasks and users, used by the database backed idempotency store
+-- (tasmag.idempotency.store=jdbc). A row without a resource ID is reserved by a request still in progress.
+CREATE TABLE IF NOT EXISTS idempotency_key (
+    scope           VARCHAR(32)  NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    resource_id     BIGINT,
+    created_at      TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (scope, idempotency_key)
+);
+
+-- Serves the purge of expired keys.
+CREATE INDEX IF NOT EXISTS idx_idempotency_key_created_at ON idempotency_key (created_at);
@@ -0,0 +1,86 @@
+package org.example.tasmag;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * This class contains tests of both IdempotencyStore implementations, the database backed one running against
+ * an embedded H2 database created by its migration, since the integration tests use the in-memory store.
+ *
+ * The tests cover:
+ * - Reserving a key once, and returning the created resource for repeated reservations.
+ * - Reporting keys reserved by requests still in progress, and releasing them after a failure.
+ * - Refusing keys reused by requests with another fingerprint.
+ * - Keeping the keys of different scopes apart.
+ * - Forgetting keys after their time to live.
+ * - Requiring a fingerprint secret shared by all instances for the database backed store.
+ */
+class IdempotencyStoreTest {
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .addScript("classpath:db/migration/V9__idempotency_key.sql")
+            .addScript("classpath:db/migration/V10__idempotency_key_fingerprint.sql")
+            .build();
+
+    @AfterEach
+    void shutDown() {
+        database.shutdown();
+    }
+
+    private static void assertReservations(IdempotencyStore store) {
+        assertThat(store.reserve("tasks", "a", "f")).isInstanceOf(IdempotencyStore.Reservation.Acquired.class);
+        assertThat(store.reserve("tasks", "a", "f")).isInstanceOf(IdempotencyStore.Reservation.Pending.class);
+        assertThat(store.reserve("tasks", "a", "g")).isInstanceOf(IdempotencyStore.Reservation.Mismatch.class);
+        assertThat(store.reserve("users", "a", "g")).isInstanceOf(IdempotencyStore.Reservation.Acquired.class);
+
+        store.complete("tasks", "a", 42);
+        assertThat(store.reserve("tasks", "a", "f")).isEqualTo(new IdempotencyStore.Reservation.Completed(42));
+        assertThat(store.reserve("tasks", "a", "g")).isInstanceOf(IdempotencyStore.Reservation.Mismatch.class);
+        store.release("tasks", "a");
+        assertThat(store.reserve("tasks", "a", "f")).isEqualTo(new IdempotencyStore.Reservation.Completed(42));
+
+        store.release("users", "a");
+        assertThat(store.reserve("users", "a", "f")).isInstanceOf(IdempotencyStore.Reservation.Acquired.class);
+    }
+
+    @Test
+    void reserveInMemory() {
+        assertReservations(new InMemoryIdempotencyStore(Duration.ofHours(1), 100));
+    }
+
+    @Test
+    void reserveInDatabase() {
+        assertReservations(new JdbcIdempotencyStore(new JdbcTemplate(database), Duration.ofHours(1), Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void expireKeysInDatabase() {
+        // a negative time to live expires keys as soon as they are written, regardless of the clock resolution
+        Duration expired = Duration.ofSeconds(-1);
+        JdbcIdempotencyStore store = new JdbcIdempotencyStore(new JdbcTemplate(database), expired, expired);
+
+        assertThat(store.reserve("tasks", "a", "f")).isInstanceOf(IdempotencyStore.Reservation.Acquired.class);
+        store.complete("tasks", "a", 42);
+        assertThat(store.reserve("tasks", "a", "f")).isInstanceOf(IdempotencyStore.Reservation.Acquired.class);
+        assertThat(store.purge()).isEqualTo(1);
+    }
+
+    @Test
+    void requireFingerprintSecretInDatabase() {
+        assertThatThrownBy(() -> new IdempotencyFingerprintAdvice(" ", "jdbc"))
+                .isInstanceOf(IllegalStateException.class);
+        new IdempotencyFingerprintAdvice("", "memory");
+        new IdempotencyFingerprintAdvice("secret", "jdbc");
+    }
+}
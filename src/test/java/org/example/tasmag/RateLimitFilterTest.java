@@ -0,0 +1,135 @@
+package org.example.tasmag;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * This class contains tests of the RateLimitFilter, run against mock requests without an application context,
+ * since the filter is disabled in the integration tests.
+ *
+ * The tests cover:
+ * - Rejecting requests of a client beyond its rate with 429 TOO MANY REQUESTS, without affecting other clients.
+ * - Applying the limits of specific routes.
+ * - Identifying clients by the client header only behind a trusted proxy.
+ * - Shedding requests beyond the concurrency limit with 503 SERVICE UNAVAILABLE.
+ * - Leaving long-lived requests alone.
+ * - Counting rejected requests.
+ */
+class RateLimitFilterTest {
+
+    private static final String PROXY = "10.0.0.1";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * Creates a filter whose buckets practically don't refill during a test.
+     */
+    private RateLimitFilter filter(int maxConcurrentRequests) {
+        RateLimitProperties properties = new RateLimitProperties(true, "X-Client-Id", List.of(PROXY), 100, 2, 0.001,
+                List.of(new RateLimitProperties.Route("POST", "/api/v1/tasks", 1, 0.001)),
+                maxConcurrentRequests, Duration.ZERO, List.of("/api/v1/tasks/events"));
+        return new RateLimitFilter(properties, meterRegistry);
+    }
+
+    private static MockHttpServletResponse perform(RateLimitFilter filter, String method, String path, String client,
+                                                   FilterChain chain) throws IOException, ServletException {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setRemoteAddr(client);
+        return perform(filter, request, chain);
+    }
+
+    private static MockHttpServletResponse perform(RateLimitFilter filter, MockHttpServletRequest request,
+                                                   FilterChain chain) throws IOException, ServletException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static MockHttpServletResponse perform(RateLimitFilter filter, String method, String path, String client)
+            throws IOException, ServletException {
+        return perform(filter, method, path, client, new MockFilterChain());
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.find(RateLimitFilter.REJECTED_COUNTER).tag("reason", reason).counter().count();
+    }
+
+    @Test
+    void rejectRequestsBeyondRate() throws Exception {
+        RateLimitFilter filter = filter(10);
+
+        assertThat(perform(filter, "GET", "/api/v1/tasks", "192.0.2.1").getStatus()).isEqualTo(200);
+        assertThat(perform(filter, "GET", "/api/v1/tasks/1", "192.0.2.1").getStatus()).isEqualTo(200);
+        MockHttpServletResponse rejected = perform(filter, "GET", "/api/v1/tasks", "192.0.2.1");
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader("Retry-After")).isNotNull();
+
+        assertThat(perform(filter, "GET", "/api/v1/tasks", "192.0.2.2").getStatus()).isEqualTo(200);
+        assertThat(rejected("rate")).isEqualTo(1);
+    }
+
+    @Test
+    void applyRouteLimits() throws Exception {
+        RateLimitFilter filter = filter(10);
+
+        assertThat(perform(filter, "POST", "/api/v1/tasks", "192.0.2.1").getStatus()).isEqualTo(200);
+        assertThat(perform(filter, "POST", "/api/v1/tasks", "192.0.2.1").getStatus()).isEqualTo(429);
+        assertThat(perform(filter, "GET", "/api/v1/tasks", "192.0.2.1").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void honourClientHeaderOnlyFromTrustedProxy() throws Exception {
+        RateLimitFilter filter = filter(10);
+
+        // a client sending its own header still shares the bucket of its address
+        for (String client : List.of("x", "y", "z")) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/tasks");
+            request.setRemoteAddr("192.0.2.1");
+            request.addHeader("X-Client-Id", client);
+            int expected = client.equals("z") ? 429 : 200;
+            assertThat(perform(filter, request, new MockFilterChain()).getStatus()).isEqualTo(expected);
+        }
+
+        // the clients behind the proxy get a bucket each
+        for (String client : List.of("x", "y", "z")) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/tasks");
+            request.setRemoteAddr(PROXY);
+            request.addHeader("X-Client-Id", client);
+            assertThat(perform(filter, request, new MockFilterChain()).getStatus()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    void shedRequestsBeyondConcurrencyLimit() throws Exception {
+        RateLimitFilter filter = filter(1);
+
+        int[] concurrentStatus = new int[1];
+        MockHttpServletResponse response = perform(filter, "GET", "/api/v1/tasks", "192.0.2.1",
+                (request, ignored) -> concurrentStatus[0] = perform(filter, "GET", "/users", "192.0.2.2").getStatus());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(concurrentStatus[0]).isEqualTo(503);
+        assertThat(perform(filter, "GET", "/users", "192.0.2.2").getStatus()).isEqualTo(200);
+        assertThat(rejected("concurrency")).isEqualTo(1);
+    }
+
+    @Test
+    void skipExcludedPaths() throws Exception {
+        RateLimitFilter filter = filter(0);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(perform(filter, "GET", "/api/v1/tasks/events", "192.0.2.1").getStatus()).isEqualTo(200);
+        }
+    }
+}
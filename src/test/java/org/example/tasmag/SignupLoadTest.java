@@ -0,0 +1,217 @@
+package org.example.tasmag;
+
+import org.example.tasmag.task.Task;
+import org.example.tasmag.task.TaskService;
+import org.example.tasmag.task.TaskStatus;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * This class contains a load test of user signup, where every request hashes a password with Argon2.
+ * It measures the latency of task lookups first alone and then during a burst of signups,
+ * and reports the signup throughput per password hashing thread.
+ * Since hashing runs on its own bounded executor, the task lookups should keep their latency,
+ * and signups beyond the capacity of the executor should be rejected with 429 TOO MANY REQUESTS.
+ *
+ * The test is tagged "load" and runs only with the load-test Maven profile: mvn test -Pload-test.
+ * The load is tuned with system properties:
+ * - loadtest.signup.clients: number of clients creating users, 64 by default.
+ * - loadtest.task.clients: number of clients looking up tasks, 16 by default.
+ * - loadtest.duration-seconds: duration of each phase, 20 by default.
+ * - loadtest.hashing-threads: size of the password hashing pool, 2 by default.
+ */
+@Tag("load")
+class SignupLoadTest {
+
+    private static final int SIGNUP_CLIENTS = Integer.getInteger("loadtest.signup.clients", 64);
+    private static final int TASK_CLIENTS = Integer.getInteger("loadtest.task.clients", 16);
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("loadtest.duration-seconds", 20));
+    private static final int HASHING_THREADS = Integer.getInteger("loadtest.hashing-threads", 2);
+    private static final int TASKS = 1_000;
+
+    @Test
+    void taskLatencyDuringSignupBurst() throws Exception {
+        String[] args = {
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:signup-load",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.flyway.enabled=false",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.cache.type=none",
+                // all clients share one address, only the rejections of the hashing executor are measured
+                "--tasmag.rate-limit.enabled=false",
+                "--tasmag.users.password-hashing.pool-size=" + HASHING_THREADS,
+        };
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TasmagApplication.class).run(args);
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient httpClient = HttpClient.newBuilder().executor(clients).build()) {
+            List<Long> ids = seedTasks(context.getBean(TaskService.class));
+            String baseUri = "http://localhost:" + context.getEnvironment().getRequiredProperty("local.server.port");
+
+            TaskLoad baseline = new TaskLoad(httpClient, baseUri, ids);
+            baseline.run(clients, 0, null);
+
+            TaskLoad underSignups = new TaskLoad(httpClient, baseUri, ids);
+            SignupLoad signups = new SignupLoad(httpClient, baseUri);
+            underSignups.run(clients, SIGNUP_CLIENTS, signups);
+
+            double seconds = DURATION.toNanos() / 1e9;
+            System.out.printf("signups: %d created (%.1f/s, %.1f/s per hashing thread), %d rejected, %d failed%n",
+                    signups.created.get(), signups.created.get() / seconds,
+                    signups.created.get() / seconds / HASHING_THREADS, signups.rejected.get(), signups.failed.get());
+            System.out.printf("task lookups alone:           p50 %.2f ms, p99 %.2f ms%n",
+                    baseline.percentileMillis(0.50), baseline.percentileMillis(0.99));
+            System.out.printf("task lookups during signups:  p50 %.2f ms, p99 %.2f ms%n",
+                    underSignups.percentileMillis(0.50), underSignups.percentileMillis(0.99));
+
+            assertThat(baseline.errors.get()).isZero();
+            assertThat(underSignups.errors.get()).isZero();
+            assertThat(signups.created.get()).isPositive();
+            assertThat(signups.failed.get()).isZero();
+        }
+    }
+
+    private static List<Long> seedTasks(TaskService taskService) {
+        List<Long> ids = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            Task task = new Task("task" + i, "description" + i, LocalDateTime.now().plusDays(i), TaskStatus.PENDING);
+            ids.add(taskService.saveTask(task).getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Clients looking up random tasks by ID, recording the latency of every request.
+     */
+    private static class TaskLoad {
+
+        private final HttpClient httpClient;
+        private final String baseUri;
+        private final List<Long> ids;
+        private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger errors = new AtomicInteger();
+
+        TaskLoad(HttpClient httpClient, String baseUri, List<Long> ids) {
+            this.httpClient = httpClient;
+            this.baseUri = baseUri;
+            this.ids = ids;
+        }
+
+        /**
+         * Runs the task clients, and the given number of signup clients next to them, for {@link #DURATION}.
+         */
+        void run(ExecutorService clients, int signupClients, SignupLoad signups) throws InterruptedException {
+            AtomicBoolean running = new AtomicBoolean(true);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < signupClients; i++) {
+                futures.add(clients.submit(() -> signups.run(running)));
+            }
+            for (int i = 0; i < TASK_CLIENTS; i++) {
+                futures.add(clients.submit(() -> lookUpTasks(running)));
+            }
+            TimeUnit.NANOSECONDS.sleep(DURATION.toNanos());
+            running.set(false);
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        }
+
+        private void lookUpTasks(AtomicBoolean running) {
+            while (running.get()) {
+                Long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+                long sent = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = httpClient.send(
+                            HttpRequest.newBuilder(URI.create(baseUri + "/api/v1/tasks/" + id)).GET().build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() != 200) {
+                        errors.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                }
+                latencies.add(System.nanoTime() - sent);
+            }
+        }
+
+        double percentileMillis(double percentile) {
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            return sorted.get((int) (sorted.size() * percentile)) / 1e6;
+        }
+    }
+
+    /**
+     * Clients creating users with unique emails as fast as the server accepts them.
+     */
+    private static class SignupLoad {
+
+        private final HttpClient httpClient;
+        private final String baseUri;
+        private final AtomicLong sequence = new AtomicLong();
+        private final AtomicInteger created = new AtomicInteger();
+        private final AtomicInteger rejected = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+
+        SignupLoad(HttpClient httpClient, String baseUri) {
+            this.httpClient = httpClient;
+            this.baseUri = baseUri;
+        }
+
+        void run(AtomicBoolean running) {
+            while (running.get()) {
+                long n = sequence.incrementAndGet();
+                String json = "{\"username\":\"user" + n + "\",\"email\":\"user" + n + "@example.com\",\"password\":\"secret" + n + "\"}";
+                try {
+                    HttpResponse<Void> response = httpClient.send(
+                            HttpRequest.newBuilder(URI.create(baseUri + "/users"))
+                                    .header("Content-Type", "application/json")
+                                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                                    .build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    switch (response.statusCode()) {
+                        case 201 -> created.incrementAndGet();
+                        case 429 -> {
+                            rejected.incrementAndGet();
+                            // backs off like a client honoring Retry-After, in milliseconds to keep the pressure up
+                            TimeUnit.MILLISECONDS.sleep(10);
+                        }
+                        default -> failed.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                }
+            }
+        }
+    }
+}
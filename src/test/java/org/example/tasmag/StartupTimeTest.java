@@ -0,0 +1,87 @@
+package org.example.tasmag;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * This class contains a test measuring the time until the application serves its first request,
+ * started with the default configuration and with the fast-start profile.
+ * It starts the application and sends a request listing tasks as soon as the server is up,
+ * reporting the time until the context was ready and the latency of that first request,
+ * which includes the creation of the beans left to the first request by the fast-start profile.
+ *
+ * Both runs follow a warm-up start in the same JVM, so they compare the work done by the application context
+ * rather than class loading and JIT compilation, which the CDS archive of the fast-start build addresses.
+ * The database is an in-memory H2 database with the schema created by Hibernate, unless
+ * startup.datasource.url, startup.datasource.username and startup.datasource.password point to PostgreSQL,
+ * which is migrated by Flyway and validated by Hibernate like in production.
+ *
+ * The test is tagged "load" and runs only with the load-test Maven profile: mvn test -Pload-test.
+ */
+@Tag("load")
+class StartupTimeTest {
+
+    @Test
+    void measureTimeToFirstRequest() throws Exception {
+        start("warm-up", null);
+        StartupResult standard = start("default", null);
+        StartupResult fastStart = start("fast-start", "fast-start");
+
+        System.out.printf("%-12s %10s %18s %22s%n", "profile", "ready ms", "first request ms", "time to first request");
+        System.out.printf("%-12s %10.0f %18.0f %22.0f%n", "default", standard.readyMillis(),
+                standard.firstRequestMillis(), standard.timeToFirstRequestMillis());
+        System.out.printf("%-12s %10.0f %18.0f %22.0f%n", "fast-start", fastStart.readyMillis(),
+                fastStart.firstRequestMillis(), fastStart.timeToFirstRequestMillis());
+
+        assertThat(standard.status()).isEqualTo(200);
+        assertThat(fastStart.status()).isEqualTo(200);
+    }
+
+    private StartupResult start(String name, String profile) throws Exception {
+        String url = System.getProperty("startup.datasource.url", "jdbc:h2:mem:startup-" + name);
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + System.getProperty("startup.datasource.username", "sa"),
+                "--spring.datasource.password=" + System.getProperty("startup.datasource.password", ""),
+                "--spring.datasource.driver-class-name=" + (url.startsWith("jdbc:h2") ? "org.h2.Driver" : "org.postgresql.Driver"),
+                "--spring.flyway.enabled=" + !url.startsWith("jdbc:h2"),
+                "--spring.jpa.hibernate.ddl-auto=" + (url.startsWith("jdbc:h2") ? "create-drop" : "validate"),
+                "--tasmag.tasks.sweeper.enabled=false",
+                "--tasmag.tasks.archive.enabled=false"));
+        if (profile != null) {
+            args.add("--spring.profiles.active=" + profile);
+        }
+
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context =
+                     new SpringApplicationBuilder(TasmagApplication.class).run(args.toArray(String[]::new))) {
+            long ready = System.nanoTime();
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+
+            HttpResponse<Void> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/tasks?limit=1")).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+            long served = System.nanoTime();
+            return new StartupResult(response.statusCode(), (ready - start) / 1e6, (served - ready) / 1e6);
+        }
+    }
+
+    private record StartupResult(int status, double readyMillis, double firstRequestMillis) {
+
+        double timeToFirstRequestMillis() {
+            return readyMillis + firstRequestMillis;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.tasmag;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.tasmag.task.TaskService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * This class contains integration tests of the task cache, which the other tests disable.
+ * It runs with the Caffeine cache of production, and without test transactions, so that the cache entries
+ * are evicted by committed writes like they are for real requests.
+ *
+ * The tests cover:
+ * - Serving a task read before from the cache.
+ * - Returning the updated task after a PUT request.
+ * - Returning the patched task after a PATCH request.
+ * - Returning 404 NOT FOUND after a DELETE request.
+ *
+ * Annotations:
+ * - @TestPropertySource: Loads the test properties with the Caffeine cache enabled and a database of its own,
+ *   so that tasks created here don't take IDs expected by the task tests.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {"spring.datasource.url=jdbc:h2:mem:taskcachetestdb", "spring.cache.type=caffeine"})
+public class TaskCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final String path = "/api/v1/tasks";
+    private final String pathWithId = "/api/v1/tasks/{id}";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private long createTask(String name) throws Exception {
+        String response = mockMvc.perform(post(path)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(Map.of("name", name, "status", "PENDING"))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+
+    /**
+     * Reads a task, which puts it into the cache.
+     */
+    private void getTask(long id, String name) throws Exception {
+        mockMvc.perform(get(pathWithId, id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is(name)));
+        Cache cache = cacheManager.getCache(TaskService.TASK_CACHE);
+        assertThat(cache).isNotNull();
+        assertThat(cache.get(id)).isNotNull();
+    }
+
+    @Test
+    void updateTaskEvictsCachedTask() throws Exception {
+        long id = createTask("cached1");
+        getTask(id, "cached1");
+
+        mockMvc.perform(put(pathWithId, id)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "updated1", "status", "IN_PROGRESS"))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(pathWithId, id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("updated1")))
+                .andExpect(jsonPath("$.status", is("IN_PROGRESS")));
+    }
+
+    @Test
+    void patchTaskEvictsCachedTask() throws Exception {
+        long id = createTask("cached2");
+        getTask(id, "cached2");
+
+        mockMvc.perform(patch(pathWithId, id)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("{\"status\":\"COMPLETED\"}"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get(pathWithId, id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("cached2")))
+                .andExpect(jsonPath("$.status", is("COMPLETED")));
+    }
+
+    @Test
+    void deleteTaskEvictsCachedTask() throws Exception {
+        long id = createTask("cached3");
+        getTask(id, "cached3");
+
+        mockMvc.perform(delete(pathWithId, id))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get(pathWithId, id))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -2,21 +2,40 @@ package org.example.tasmag;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.transaction.Transactional;
 import org.example.tasmag.task.Task;
+import org.example.tasmag.task.TaskArchiver;
+import org.example.tasmag.task.TaskOverdueSweeper;
+import org.example.tasmag.task.TaskStatsService;
 import org.example.tasmag.task.TaskStatus;
+import org.example.tasmag.user.User;
+import org.example.tasmag.user.UserRepository;
+import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.hamcrest.Matchers.*;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -26,10 +45,24 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * It uses MockMvc to simulate HTTP requests and verify the behavior of the task management API.
  *
  * The tests cover:
- * - Creating tasks using POST requests.
+ * - Creating tasks using POST requests, one by one and in batches.
+ * - Creating a task only once when requests are repeated with the same idempotency key,
+ *   and refusing the key of another request.
  * - Retrieving all tasks and individual tasks by ID using GET requests.
- * - Updating tasks by ID using PUT requests.
+ * - Paging through, filtering, streaming and searching tasks using GET requests.
+ * - Selecting the fields of tasks in responses.
+ * - Sending and receiving tasks encoded in CBOR instead of JSON.
+ * - Receiving task changes as server-sent events.
+ * - Retrieving task statistics using GET requests.
+ * - Updating tasks by ID using PUT and PATCH requests, with the allowed status transitions only.
+ * - Refusing owners and assignees that don't exist, and unassigning tasks.
  * - Deleting tasks by ID using DELETE requests.
+ * - Changing the status of and deleting many tasks at once, by IDs or by a filter.
+ * - Exporting all tasks as CSV and NDJSON, and importing them with their IDs.
+ * - Conditional requests using entity tags.
+ * - Recording the latency of service methods.
+ * - Moving overdue tasks to FAILED in the background.
+ * - Archiving finished tasks and retrieving them only when asked for.
  *
  * Annotations:
  * - @SpringBootTest: Loads the full application context for testing.
@@ -42,6 +75,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @SpringBootTest
 @AutoConfigureMockMvc
 @TestPropertySource("classpath:application-test.properties")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class TaskControllerTest {
 
     @Autowired
@@ -53,6 +87,21 @@ public class TaskControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private TaskStatsService taskStatsService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TaskOverdueSweeper taskOverdueSweeper;
+
+    @Autowired
+    private TaskArchiver taskArchiver;
+
+    @Autowired
+    private UserRepository userRepository;
+
     private final LocalDateTime dueDate1 = LocalDateTime.of(2020, 1, 1, 0, 0);
     private final Task task1 = new Task("task1", "description1", dueDate1, TaskStatus.PENDING);
 
@@ -93,6 +142,93 @@ public class TaskControllerTest {
 
     }
 
+    @Test
+    @Transactional
+    @Rollback
+    void createTaskWithIdempotencyKey() throws Exception {
+        String json = objectMapper.writeValueAsString(Map.of("name", "task3", "status", "PENDING"));
+
+        String created = mockMvc.perform(post(path)
+                        .header(IdempotencyStore.HEADER, "create-task-3")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(json))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyStore.REPLAYED_HEADER))
+                .andExpect(jsonPath("$.name", is("task3")))
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(created).get("id").asLong();
+
+        mockMvc.perform(post(path)
+                        .header(IdempotencyStore.HEADER, "create-task-3")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(json))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyStore.REPLAYED_HEADER, "true"))
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.id", is((int) id)))
+                .andExpect(jsonPath("$.name", is("task3")));
+
+        // the key is bound to the body of the first request, but not to the client
+        mockMvc.perform(post(path)
+                        .header(IdempotencyStore.HEADER, "create-task-3")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "other", "status", "PENDING"))))
+                .andExpect(status().isUnprocessableEntity());
+        mockMvc.perform(post(path)
+                        .with(request -> {
+                            request.setRemoteAddr("192.0.2.1");
+                            return request;
+                        })
+                        .header(IdempotencyStore.HEADER, "create-task-3")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(json))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyStore.REPLAYED_HEADER, "true"))
+                .andExpect(jsonPath("$.id", is((int) id)));
+
+        mockMvc.perform(post(path)
+                        .header(IdempotencyStore.HEADER, "create-task-4")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(json))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", not(is((int) id))));
+
+        mockMvc.perform(post(path)
+                        .header(IdempotencyStore.HEADER, "k".repeat(IdempotencyStore.MAX_KEY_LENGTH + 1))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(json))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    void createTasksInBatch() throws Exception {
+        String ndjson = objectMapper.writeValueAsString(task1) + "\n"
+                + "{\"name\":\"broken\",\"status\":\"UNKNOWN\"}\n"
+                + objectMapper.writeValueAsString(task2) + "\n";
+
+        mockMvc.perform(post(path + "/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON_VALUE)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].status", is("CREATED")))
+                .andExpect(jsonPath("$[0].id", notNullValue()))
+                .andExpect(jsonPath("$[1].status", is("FAILED")))
+                .andExpect(jsonPath("$[1].error", notNullValue()))
+                .andExpect(jsonPath("$[2].status", is("CREATED")));
+
+        String array = objectMapper.writeValueAsString(new Task[]{task1, task2});
+
+        mockMvc.perform(post(path + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(array))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[*].status", everyItem(is("CREATED"))));
+    }
+
     @Test
     @Transactional
     @Rollback
@@ -104,6 +240,202 @@ public class TaskControllerTest {
                 .andExpect(jsonPath("$", hasSize(2)));
     }
 
+    @Test
+    @Transactional
+    @Rollback
+    void getTasksPage() throws Exception {
+        String link = mockMvc.perform(get(path).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(1)))
+                .andExpect(header().string("Link", containsString("rel=\"next\"")))
+                .andReturn().getResponse().getHeader("Link");
+
+        String nextPage = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+        mockMvc.perform(get(nextPage))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(2)));
+
+        mockMvc.perform(get(path).param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    void getTasksWithSelectedFields() throws Exception {
+        mockMvc.perform(get(path).param("fields", "id, status"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", is(1)))
+                .andExpect(jsonPath("$[0].status", is("PENDING")))
+                .andExpect(jsonPath("$[0].name").doesNotExist())
+                .andExpect(jsonPath("$[0].dueDate").doesNotExist());
+
+        mockMvc.perform(get(pathWithId, 2).param("fields", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("task2")))
+                .andExpect(jsonPath("$.id").doesNotExist())
+                .andExpect(jsonPath("$.description").doesNotExist());
+
+        mockMvc.perform(get(pathWithId, 2).param("fields", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(2)))
+                .andExpect(jsonPath("$.description", is("description2")));
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    void getTasksFiltered() throws Exception {
+        mockMvc.perform(get(path).param("status", "FAILED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(2)));
+
+        mockMvc.perform(get(path).param("status", "PENDING", "FAILED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        mockMvc.perform(get(path)
+                        .param("status", "PENDING")
+                        .param("dueBefore", "2021-01-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(1)));
+
+        mockMvc.perform(get(path)
+                        .param("dueAfter", "2020-06-01T00:00:00")
+                        .param("createdBefore", dateToString(LocalDateTime.now().plusDays(1))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(2)));
+
+        mockMvc.perform(get(path).param("status", "IN_PROGRESS"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        mockMvc.perform(get(path).param("status", "UNKNOWN"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    void getTaskStats() throws Exception {
+        taskStatsService.refresh();
+
+        mockMvc.perform(get(path + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.total", is(2)))
+                .andExpect(jsonPath("$.byStatus.PENDING", is(1)))
+                .andExpect(jsonPath("$.byStatus.FAILED", is(1)))
+                .andExpect(jsonPath("$.byStatus.COMPLETED", is(0)))
+                .andExpect(jsonPath("$.archived", is(0)))
+                .andExpect(jsonPath("$.overdue", is(1)))
+                .andExpect(jsonPath("$.dueDateHistogram.overdue", is(1)))
+                .andExpect(jsonPath("$.dueDateHistogram.dueLater", is(0)))
+                .andExpect(jsonPath("$.refreshedAt", notNullValue()));
+    }
+
+    @Test
+    void streamTasks() throws Exception {
+        MvcResult result = mockMvc.perform(get(path + "/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("\"name\":\"task1\"")))
+                .andExpect(content().string(containsString("\"name\":\"task2\"")));
+    }
+
+    @Test
+    void streamTaskEvents() throws Exception {
+        MvcResult result = mockMvc.perform(get(path + "/events").header("Last-Event-ID", "0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // replays the events of the tasks created before, sent on another thread,
+        // which also sets the content type when it writes the first event
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            assertThat(result.getResponse().getContentType()).isNotNull();
+            assertThat(MediaType.parseMediaType(result.getResponse().getContentType())
+                    .isCompatibleWith(MediaType.TEXT_EVENT_STREAM)).isTrue();
+            assertThat(result.getResponse().getContentAsString())
+                    .contains("event:CREATED")
+                    .contains("\"taskId\":1");
+        });
+
+        mockMvc.perform(get(path + "/events").header("Last-Event-ID", "not-an-id"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    void searchTasks() throws Exception {
+        mockMvc.perform(get(path + "/search").param("q", "TASK"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        mockMvc.perform(get(path + "/search").param("q", "description2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(2)));
+
+        mockMvc.perform(get(path + "/search").param("q", "task").param("size", "1").param("page", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(2)));
+
+        // wildcards are searched for literally
+        mockMvc.perform(get(path + "/search").param("q", "%"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get(path + "/search").param("q", "task_"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        mockMvc.perform(get(path + "/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    void createAndGetTaskAsCbor() throws Exception {
+        CBORMapper cborMapper = new CBORMapper();
+        byte[] body = cborMapper.writeValueAsBytes(
+                Map.of("name", "task3", "description", "description3", "status", "IN_PROGRESS"));
+
+        byte[] created = mockMvc.perform(post(path)
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(cborMapper.readValue(created, Map.class))
+                .containsEntry("name", "task3")
+                .containsEntry("status", "IN_PROGRESS");
+
+        byte[] task = mockMvc.perform(get(pathWithId, 2).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(cborMapper.readValue(task, Map.class))
+                .containsEntry("name", "task2")
+                .containsEntry("dueDate", dateToString(dueDate2));
+
+        mockMvc.perform(get(pathWithId, 2))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE));
+    }
+
     @Test
     @Transactional
     @Rollback
@@ -121,6 +453,19 @@ public class TaskControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void recordServiceMetrics() throws Exception {
+        mockMvc.perform(get(pathWithId, 1))
+                .andExpect(status().isOk());
+
+        Timer timer = meterRegistry.find(MetricsConfiguration.SERVICE_TIMER)
+                .tag("class", "org.example.tasmag.task.TaskService")
+                .tag("method", "findTaskById")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isPositive();
+    }
+
     @Test
     @Transactional
     @Rollback
@@ -144,6 +489,355 @@ public class TaskControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @Transactional
+    @Rollback
+    void patchTaskById() throws Exception {
+        mockMvc.perform(patch(pathWithId, 2)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("{\"status\":\"CANCELLED\"}"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get(pathWithId, 2))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("task2")))
+                .andExpect(jsonPath("$.description", is("description2")))
+                .andExpect(jsonPath("$.status", is("CANCELLED")));
+
+        // cancelled tasks are final, but keep their status when other fields change
+        mockMvc.perform(patch(pathWithId, 2)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("{\"status\":\"PENDING\"}"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(put(pathWithId, 2)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("{\"name\":\"task2\",\"status\":\"COMPLETED\"}"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(patch(pathWithId, 2)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("{\"name\":\"renamed\",\"status\":\"CANCELLED\"}"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get(pathWithId, 2))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("renamed")))
+                .andExpect(jsonPath("$.status", is("CANCELLED")));
+
+        mockMvc.perform(patch(pathWithId, 9)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("{\"status\":\"COMPLETED\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    void assignTasksToUsers() throws Exception {
+        mockMvc.perform(post(path)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("{\"name\":\"unowned\",\"status\":\"PENDING\",\"ownerId\":999}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(put(pathWithId, 1)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("{\"name\":\"task1\",\"status\":\"PENDING\",\"assigneeId\":999}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(patch(pathWithId, 1)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("{\"assigneeId\":999}"))
+                .andExpect(status().isBadRequest());
+
+        long userId = userRepository.save(new User("assignee", "assignee@example.com", "123")).getId();
+        mockMvc.perform(patch(pathWithId, 1)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("{\"assigneeId\":" + userId + "}"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get(pathWithId, 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.assigneeId", is((int) userId)));
+
+        mockMvc.perform(patch(pathWithId, 1)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("{\"assigneeId\":" + userId + ",\"unassign\":true}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(patch(pathWithId, 1)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("{\"unassign\":true}"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get(pathWithId, 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("task1")))
+                .andExpect(jsonPath("$.assigneeId").value(nullValue()));
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    void conditionalRequests() throws Exception {
+        String eTag = mockMvc.perform(get(pathWithId, 2))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get(pathWithId, 2).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        String json1 = objectMapper.writeValueAsString(task1);
+
+        String updatedETag = mockMvc.perform(put(pathWithId, 2)
+                        .header("If-Match", eTag)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(json1))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(put(pathWithId, 2)
+                        .header("If-Match", eTag)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(json1))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(patch(pathWithId, 2)
+                        .header("If-Match", eTag)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("{\"status\":\"COMPLETED\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(patch(pathWithId, 2)
+                        .header("If-Match", updatedETag)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("{\"status\":\"COMPLETED\"}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().exists("ETag"));
+
+        mockMvc.perform(get(pathWithId, 2).header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("COMPLETED")));
+
+        mockMvc.perform(patch(pathWithId, 9)
+                        .header("If-Match", eTag)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("{\"status\":\"COMPLETED\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    void sweepOverdueTasks() throws Exception {
+        double transitionedBefore = meterRegistry.find(TaskOverdueSweeper.TRANSITIONED_COUNTER).counter().count();
+
+        assertThat(taskOverdueSweeper.sweep()).isPositive();
+
+        mockMvc.perform(get(pathWithId, 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("FAILED")));
+
+        assertThat(taskOverdueSweeper.sweep()).isZero();
+        assertThat(meterRegistry.find(TaskOverdueSweeper.TRANSITIONED_COUNTER).counter().count())
+                .isGreaterThan(transitionedBefore);
+        assertThat(meterRegistry.find(TaskOverdueSweeper.SWEEP_TIMER).timer().count()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    void archiveFinishedTasks() throws Exception {
+        Task finished = new Task("task3", "description3", dueDate2, TaskStatus.COMPLETED);
+        String response = mockMvc.perform(post(path)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(finished)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(response).get("id").asLong();
+
+        assertThat(taskArchiver.archive(LocalDateTime.now().plusMinutes(1))).isEqualTo(1);
+
+        mockMvc.perform(get(pathWithId, id))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get(pathWithId, id).param("includeArchived", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("task3")))
+                .andExpect(jsonPath("$.status", is("COMPLETED")));
+
+        mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+        mockMvc.perform(get(path).param("includeArchived", "true").param("limit", "2").param("status", "COMPLETED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is((int) id)));
+        mockMvc.perform(get(path).param("includeArchived", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[2].id", is((int) id)));
+
+        // the statistics still count the archived task
+        taskStatsService.refresh();
+        mockMvc.perform(get(path + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(3)))
+                .andExpect(jsonPath("$.byStatus.COMPLETED", is(1)))
+                .andExpect(jsonPath("$.archived", is(1)));
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    void bulkUpdateTaskStatuses() throws Exception {
+        // task1 is pending and may be completed, task2 has failed and may not, task 999 doesn't exist
+        mockMvc.perform(post(path + "/bulk-status")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(Map.of("ids", new long[]{1, 2, 999}, "status", "COMPLETED"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected", is(1)))
+                .andExpect(jsonPath("$.skipped", is(2)));
+        mockMvc.perform(get(pathWithId, 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("COMPLETED")));
+
+        mockMvc.perform(post(path + "/bulk-status")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "filter", Map.of("dueAfter", dateToString(dueDate1)), "status", "PENDING"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected", is(1)))
+                .andExpect(jsonPath("$.skipped", is(0)));
+        mockMvc.perform(get(pathWithId, 2))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("PENDING")));
+
+        mockMvc.perform(post(path + "/bulk-status")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "filter", Map.of("status", new String[]{"COMPLETED"}), "status", "CANCELLED"))))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post(path + "/bulk-status")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(Map.of("filter", Map.of(), "status", "CANCELLED"))))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post(path + "/bulk-status")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(Map.of("ids", new long[]{1}))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    void bulkDeleteTasks() throws Exception {
+        mockMvc.perform(post(path + "/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(Map.of("ids", new long[]{1, 1, 999}))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected", is(1)))
+                .andExpect(jsonPath("$.skipped", is(1)));
+        mockMvc.perform(get(pathWithId, 1))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(post(path + "/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(Map.of("filter", Map.of("status", new String[]{"FAILED"})))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected", is(1)));
+        mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        mockMvc.perform(post(path + "/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Not transactional, since the import moves the ID sequence, which commits on H2.
+     * The imported tasks are deleted again at the end.
+     */
+    @Test
+    void exportAndImportTasks() throws Exception {
+        MvcResult csv = mockMvc.perform(get(path + "/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(TransferFormat.CSV.getMediaType()))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("tasks.csv")))
+                .andExpect(content().string(startsWith(
+                        "id,name,description,createdAt,dueDate,status,ownerId,assigneeId,version\n")))
+                .andExpect(content().string(containsString("\n1,task1,description1,")));
+
+        MvcResult ndjson = mockMvc.perform(get(path + "/export").param("format", "ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("\"name\":\"task2\"")));
+
+        mockMvc.perform(get(path + "/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        String tasks = "id,name,description,status\n"
+                + "100001,imported1,\"with, comma\",COMPLETED\n"
+                + "100002,imported2,,PENDING\n";
+        try {
+            mockMvc.perform(post(path + "/import")
+                            .contentType(TransferFormat.CSV.getMediaType())
+                            .content(tasks))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.imported", is(2)));
+            mockMvc.perform(get(pathWithId, 100001))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.name", is("imported1")))
+                    .andExpect(jsonPath("$.description", is("with, comma")))
+                    .andExpect(jsonPath("$.status", is("COMPLETED")))
+                    .andExpect(header().string("ETag", "\"0\""));
+            mockMvc.perform(get(pathWithId, 100002))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.description").doesNotExist());
+
+            // the whole import is rejected, including the new task
+            mockMvc.perform(post(path + "/import")
+                            .contentType(TransferFormat.CSV.getMediaType())
+                            .content(tasks + "100003,imported3,,PENDING\n"))
+                    .andExpect(status().isConflict());
+            mockMvc.perform(get(pathWithId, 100003))
+                    .andExpect(status().isNotFound());
+
+            mockMvc.perform(post(path + "/import")
+                            .contentType(TransferFormat.CSV.getMediaType())
+                            .content("id,name\nabc,broken\n"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(post(path + "/import")
+                            .contentType(TransferFormat.CSV.getMediaType())
+                            .content("id,name\n,broken\n"))
+                    .andExpect(status().isBadRequest());
+
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write("{\"id\":100003,\"name\":\"imported3\"}\n".getBytes(StandardCharsets.UTF_8));
+            }
+            mockMvc.perform(post(path + "/import")
+                            .contentType(MediaType.APPLICATION_NDJSON)
+                            .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                            .content(compressed.toByteArray()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.imported", is(1)));
+            mockMvc.perform(get(pathWithId, 100003))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.name", is("imported3")));
+        } finally {
+            mockMvc.perform(post(path + "/bulk-delete")
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(objectMapper.writeValueAsString(Map.of("ids", new long[]{100001, 100002, 100003}))))
+                    .andExpect(status().isOk());
+        }
+    }
+
     @Test
     @Transactional
     @Rollback
@@ -153,5 +847,8 @@ public class TaskControllerTest {
 
         mockMvc.perform(get(pathWithId, 1))
                 .andExpect(status().isNotFound());
+
+        mockMvc.perform(delete(pathWithId, 1))
+                .andExpect(status().isNotFound());
     }
 }
@@ -2,9 +2,16 @@ package org.example.tasmag;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.transaction.Transactional;
+import org.example.tasmag.task.Task;
+import org.example.tasmag.task.TaskService;
+import org.example.tasmag.task.TaskStatus;
+import org.example.tasmag.user.PasswordHasher;
 import org.example.tasmag.user.User;
+import org.example.tasmag.user.UserRepository;
+import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -12,7 +19,16 @@ import org.springframework.http.MediaType;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
 
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -23,21 +39,30 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * It uses MockMvc to simulate HTTP requests and verify the behavior of the user management API.
  *
  * The tests cover:
- * - Creating users using POST requests.
- * - Retrieving all users and individual users by ID using GET requests.
- * - Deleting users by ID using DELETE requests.
+ * - Creating users using POST requests, storing a hash of the password that is never returned.
+ * - Rejecting users without a password or with a duplicate email using POST requests.
+ * - Creating a user only once when requests are repeated with the same idempotency key,
+ *   and refusing the key of another request.
+ * - Retrieving pages of users and individual users by ID and by email using GET requests.
+ * - Selecting the fields of users in responses.
+ * - Retrieving tasks assigned to and owned by users using GET requests.
+ * - Deleting users by ID using DELETE requests, moving their tasks to other users.
+ * - Exporting all users with or without their password hashes, and importing them with their IDs and hashes only.
  *
  * Annotations:
  * - @SpringBootTest: Loads the full application context for testing.
  * - @AutoConfigureMockMvc: Auto-configures the MockMvc object for simulating HTTP requests.
- * - @TestPropertySource: Loads test-specific properties from the application-test.properties file.
+ * - @TestPropertySource: Loads test-specific properties from the application-test.properties file,
+ *   with a database of its own, so that tasks created here don't take IDs expected by the task tests.
  *
  * Transactional and rollback mechanisms are applied to ensure test isolation and prevent test data persistence.
  */
 
 @SpringBootTest
 @AutoConfigureMockMvc
-@TestPropertySource("classpath:application-test.properties")
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = "spring.datasource.url=jdbc:h2:mem:usertestdb")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class UserControllerTest {
 
     @Autowired
@@ -49,34 +74,82 @@ public class UserControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private TaskService taskService;
+
     private final User user1 = new User("Balovic", "balovic@example.com", "123");
     private final User user2 = new User("Brmbal", "brmbal@example.com", "456");
 
+    /**
+     * Serializes a user including its password, which is never written by the object mapper.
+     */
+    private String toJson(User user) throws Exception {
+        return objectMapper.writeValueAsString(Map.of(
+                "username", user.getUsername(),
+                "email", user.getEmail(),
+                "password", user.getPassword()));
+    }
+
+    private Task createTask(String name, Long ownerId, Long assigneeId) {
+        Task task = new Task(name, "description", LocalDateTime.now().plusDays(1), TaskStatus.PENDING);
+        task.setOwnerId(ownerId);
+        task.setAssigneeId(assigneeId);
+        return taskService.saveTask(task);
+    }
+
+    private ResultActions createUser(String json) throws Exception {
+        MvcResult result = mockMvc.perform(post(path)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(json))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
+    private ResultActions createUser(String json, String idempotencyKey) throws Exception {
+        MvcResult result = mockMvc.perform(post(path)
+                        .header(IdempotencyStore.HEADER, idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(json))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
     @Test
     @Order(0)
     void createUser() throws Exception {
-        String json1 = objectMapper.writeValueAsString(user1);
-        String json2 = objectMapper.writeValueAsString(user2);
-
-        mockMvc.perform(post(path)
-                        .contentType(MediaType.APPLICATION_JSON_VALUE)
-                        .content(json1))
+        createUser(toJson(user1))
                 .andExpect(status().isCreated())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(jsonPath("$.id", is(1)))
                 .andExpect(jsonPath("$.username", is("Balovic")))
                 .andExpect(jsonPath("$.email", is("balovic@example.com")))
-                .andExpect(jsonPath("$.password", is("123")));
+                .andExpect(jsonPath("$.password").doesNotExist());
 
-        mockMvc.perform(post(path)
-                        .contentType(MediaType.APPLICATION_JSON_VALUE)
-                        .content(json2))
+        createUser(toJson(user2))
                 .andExpect(status().isCreated())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(jsonPath("$.id", is(2)))
                 .andExpect(jsonPath("$.username", is("Brmbal")))
                 .andExpect(jsonPath("$.email", is("brmbal@example.com")))
-                .andExpect(jsonPath("$.password", is("456")));
+                .andExpect(jsonPath("$.password").doesNotExist());
+
+        String hash = userRepository.findById(1L).orElseThrow().getPassword();
+        assertThat(hash).startsWith("$argon2id$");
+        assertThat(passwordHasher.matches("123", hash)).isTrue();
+    }
+
+    @Test
+    void createUserWithoutPassword() throws Exception {
+        createUser(objectMapper.writeValueAsString(Map.of("username", "Nopass", "email", "nopass@example.com")))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -87,7 +160,31 @@ public class UserControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$", hasSize(2)));
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].username", is("Balovic")))
+                .andExpect(jsonPath("$[0].email", is("balovic@example.com")))
+                .andExpect(jsonPath("$[0].password").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    void getUsersPage() throws Exception {
+        String link = mockMvc.perform(get(path).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(1)))
+                .andExpect(header().string("Link", containsString("rel=\"next\"")))
+                .andReturn().getResponse().getHeader("Link");
+
+        String nextPage = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+        mockMvc.perform(get(nextPage))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(2)));
+
+        mockMvc.perform(get(path).param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -103,6 +200,124 @@ public class UserControllerTest {
 
         mockMvc.perform(get(pathWithId, 9))
                 .andExpect(status().isNotFound());
+
+        mockMvc.perform(get(pathWithId, 2).param("fields", "username"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username", is("Brmbal")))
+                .andExpect(jsonPath("$.id").doesNotExist())
+                .andExpect(jsonPath("$.email").doesNotExist());
+
+        mockMvc.perform(get(path).param("fields", "id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").exists())
+                .andExpect(jsonPath("$[0].username").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    void getUserByEmail() throws Exception {
+        mockMvc.perform(get(path).param("email", " Brmbal@Example.com"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.id", is(2)))
+                .andExpect(jsonPath("$.username", is("Brmbal")));
+
+        mockMvc.perform(get(path).param("email", "nobody@example.com"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void createUserWithDuplicateEmail() throws Exception {
+        createUser(toJson(new User("Balovic2", "BALOVIC@example.com", "789")))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void createUserWithIdempotencyKey() throws Exception {
+        String json = toJson(new User("Idempotent", "idempotent@example.com", "789"));
+
+        String created = createUser(json, "create-idempotent")
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyStore.REPLAYED_HEADER))
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(created).get("id").asLong();
+
+        try {
+            // without the key, the same user would be rejected as a duplicate
+            createUser(json, "create-idempotent")
+                    .andExpect(status().isCreated())
+                    .andExpect(header().string(IdempotencyStore.REPLAYED_HEADER, "true"))
+                    .andExpect(jsonPath("$.id", is((int) id)))
+                    .andExpect(jsonPath("$.username", is("Idempotent")))
+                    .andExpect(jsonPath("$.password").doesNotExist());
+
+            // the same key with another password is a different request
+            createUser(toJson(new User("Idempotent", "idempotent@example.com", "788")), "create-idempotent")
+                    .andExpect(status().isUnprocessableEntity());
+        } finally {
+            userRepository.deleteById(id);
+        }
+    }
+
+    @Test
+    void exportAndImportUsers() throws Exception {
+        MvcResult csv = mockMvc.perform(get(path + "/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andExpect(content().string(startsWith("id,username,email\n1,Balovic,balovic@example.com\n")))
+                .andExpect(content().string(not(containsString("argon2"))));
+
+        MvcResult ndjson = mockMvc.perform(get(path + "/export").param("format", "ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("{\"id\":2,\"username\":\"Brmbal\"")))
+                .andExpect(content().string(not(containsString("password"))));
+
+        String hash = userRepository.findById(1L).orElseThrow().getPassword();
+        MvcResult withPasswords = mockMvc.perform(get(path + "/export").param("passwords", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(withPasswords))
+                .andExpect(status().isOk())
+                .andExpect(content().string(startsWith(
+                        "id,username,email,password\n1,Balovic,balovic@example.com,\"" + hash + "\"\n")));
+
+        // users without a password hash couldn't log in
+        mockMvc.perform(post(path + "/import")
+                        .contentType(TransferFormat.CSV.getMediaType())
+                        .content("id,username,email\n1001,Imported,IMPORTED@example.com\n"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post(path + "/import")
+                        .contentType(TransferFormat.CSV.getMediaType())
+                        .content("id,username,email,password\n1001,Imported,IMPORTED@example.com,123\n"))
+                .andExpect(status().isBadRequest());
+
+        String users = "id,username,email,password\n1001,Imported,IMPORTED@example.com,\"" + hash + "\"\n";
+        try {
+            mockMvc.perform(post(path + "/import")
+                            .contentType(TransferFormat.CSV.getMediaType())
+                            .content(users))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.imported", is(1)));
+            mockMvc.perform(get(pathWithId, 1001))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.username", is("Imported")))
+                    .andExpect(jsonPath("$.email", is("imported@example.com")));
+            assertThat(passwordHasher.matches("123", userRepository.findById(1001L).orElseThrow().getPassword()))
+                    .isTrue();
+
+            mockMvc.perform(post(path + "/import")
+                            .contentType(TransferFormat.CSV.getMediaType())
+                            .content(users))
+                    .andExpect(status().isConflict());
+        } finally {
+            userRepository.deleteById(1001L);
+        }
     }
 
     @Test
@@ -115,4 +330,58 @@ public class UserControllerTest {
         mockMvc.perform(get(pathWithId, 1))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    @Transactional
+    @Rollback
+    void getUserTasks() throws Exception {
+        createTask("assigned", 1L, 2L);
+
+        mockMvc.perform(get(pathWithId + "/tasks", 2))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", is("assigned")))
+                .andExpect(jsonPath("$[0].assigneeId", is(2)));
+
+        mockMvc.perform(get(pathWithId + "/tasks", 1).param("role", "owner"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].ownerId", is(1)));
+
+        mockMvc.perform(get(pathWithId + "/tasks", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        mockMvc.perform(get(pathWithId + "/tasks", 2).param("status", "COMPLETED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        mockMvc.perform(get(pathWithId + "/tasks", 1).param("role", "watcher"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get(pathWithId + "/tasks", 9))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    void deleteUserReassigningTasks() throws Exception {
+        createTask("moved", 1L, 1L);
+
+        mockMvc.perform(delete(pathWithId, 1).param("reassignTo", "9"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(delete(pathWithId, 1).param("reassignTo", "2"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get(pathWithId + "/tasks", 2))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", is("moved")));
+
+        mockMvc.perform(get(pathWithId + "/tasks", 2).param("role", "owner"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
 }
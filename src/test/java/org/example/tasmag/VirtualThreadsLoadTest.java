@@ -0,0 +1,147 @@
+package org.example.tasmag;
+
+import org.example.tasmag.task.Task;
+import org.example.tasmag.task.TaskService;
+import org.example.tasmag.task.TaskStatus;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * This class contains a load test comparing request execution on platform threads and on virtual threads.
+ * It starts the application twice, once per thread model, and fires the same number of concurrent requests
+ * at the task endpoints, reporting throughput and latency percentiles of both runs.
+ *
+ * The test is tagged "load" and runs only with the load-test Maven profile: mvn test -Pload-test.
+ * The load is tuned with system properties:
+ * - loadtest.concurrency: number of requests in flight, 400 by default.
+ * - loadtest.requests: number of measured requests per run, 20000 by default.
+ * - loadtest.datasource.url, loadtest.datasource.username, loadtest.datasource.password:
+ *   database to test against, an in-memory H2 database by default. The difference between the thread models
+ *   shows when requests block on a real database, so point it to a PostgreSQL instance for meaningful numbers.
+ */
+@Tag("load")
+class VirtualThreadsLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 400);
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 20_000);
+    private static final int WARMUP_REQUESTS = REQUESTS / 10;
+    private static final int TASKS = 1_000;
+
+    @Test
+    void compareThreadModels() throws Exception {
+        LoadResult platform = run(false);
+        LoadResult virtual = run(true);
+
+        System.out.printf("%-16s %12s %10s %10s %8s%n", "threads", "requests/s", "p50 ms", "p99 ms", "errors");
+        System.out.printf("%-16s %12.0f %10.2f %10.2f %8d%n", "platform", platform.throughput(),
+                platform.p50Millis(), platform.p99Millis(), platform.errors());
+        System.out.printf("%-16s %12.0f %10.2f %10.2f %8d%n", "virtual", virtual.throughput(),
+                virtual.p50Millis(), virtual.p99Millis(), virtual.errors());
+
+        assertThat(platform.errors()).isZero();
+        assertThat(virtual.errors()).isZero();
+    }
+
+    private LoadResult run(boolean virtualThreads) throws Exception {
+        String url = System.getProperty("loadtest.datasource.url", "jdbc:h2:mem:load-" + virtualThreads);
+        String[] args = {
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--spring.cache.type=none",
+                // all clients share one address, the server itself is measured rather than its admission control
+                "--tasmag.rate-limit.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + System.getProperty("loadtest.datasource.username", "sa"),
+                "--spring.datasource.password=" + System.getProperty("loadtest.datasource.password", ""),
+                "--spring.datasource.driver-class-name=" + (url.startsWith("jdbc:h2") ? "org.h2.Driver" : "org.postgresql.Driver"),
+                "--spring.flyway.enabled=" + !url.startsWith("jdbc:h2"),
+                "--spring.jpa.hibernate.ddl-auto=" + (url.startsWith("jdbc:h2") ? "create-drop" : "validate"),
+        };
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TasmagApplication.class).run(args)) {
+            List<Long> ids = seedTasks(context.getBean(TaskService.class));
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+
+            fire(port, ids, WARMUP_REQUESTS);
+            return fire(port, ids, REQUESTS);
+        }
+    }
+
+    private static List<Long> seedTasks(TaskService taskService) {
+        List<Long> ids = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            Task task = new Task("task" + i, "description" + i, LocalDateTime.now().plusDays(i), TaskStatus.PENDING);
+            ids.add(taskService.saveTask(task).getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Sends the given number of requests with {@link #CONCURRENCY} of them in flight at any time.
+     * Every fourth request lists a page of tasks, the others retrieve a random task by ID.
+     */
+    private static LoadResult fire(int port, List<Long> ids, int requests) throws InterruptedException {
+        String baseUri = "http://localhost:" + port + "/api/v1/tasks";
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient httpClient = HttpClient.newBuilder().executor(clients).build()) {
+            for (int i = 0; i < CONCURRENCY; i++) {
+                clients.submit(() -> {
+                    for (int n = next.getAndIncrement(); n < requests; n = next.getAndIncrement()) {
+                        String uri = n % 4 == 0
+                                ? baseUri + "?limit=20"
+                                : baseUri + "/" + ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(
+                                    HttpRequest.newBuilder(URI.create(uri)).GET().build(),
+                                    HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[n] = System.nanoTime() - sent;
+                    }
+                });
+            }
+            clients.shutdown();
+            clients.awaitTermination(10, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        return new LoadResult(
+                requests / (elapsed / 1e9),
+                latencies[(int) (requests * 0.50)] / 1e6,
+                latencies[(int) (requests * 0.99)] / 1e6,
+                errors.get());
+    }
+
+    private record LoadResult(double throughput, double p50Millis, double p99Millis, int errors) {
+    }
+}
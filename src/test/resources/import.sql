@@ -0,0 +1,7 @@
+-- Run by Hibernate after it created the test schema.
+-- H2 has no indexes on expressions, so the case-insensitive unique indexes of the V6 migration
+-- are built on invisible generated columns instead.
+ALTER TABLE users ADD COLUMN email_lower VARCHAR(255) INVISIBLE GENERATED ALWAYS AS (LOWER(email));
+CREATE UNIQUE INDEX ux_users_email ON users (email_lower);
+ALTER TABLE users ADD COLUMN username_lower VARCHAR(255) INVISIBLE GENERATED ALWAYS AS (LOWER(username));
+CREATE UNIQUE INDEX ux_users_username ON users (username_lower);